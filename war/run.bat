@@ -21,6 +21,14 @@ if errorlevel 1 (
 
 echo ✅ Компиляция успешна!
 
+:: Векторное ядро шума (необязательно, нужен модуль jdk.incubator.vector)
+set VECTOR_OPTS=
+javac --add-modules jdk.incubator.vector -cp build -d build -encoding UTF-8 src\vector\*.java 2> nul
+if not errorlevel 1 (
+    set VECTOR_OPTS=--add-modules jdk.incubator.vector
+    echo ✅ Векторное ядро шума собрано
+)
+
 :: Копируем текстуры
 if not exist "build\textures" mkdir build\textures
 if exist "textures\*" (
@@ -31,7 +39,7 @@ if exist "textures\*" (
 echo.
 echo 🎮 ЗАПУСК WAR GAME...
 echo ================================
-java -cp build Main
+java %VECTOR_OPTS% -cp build Main
 
 echo.
 echo ================================
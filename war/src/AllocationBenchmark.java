@@ -0,0 +1,60 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+// Сколько байт выделяет отрисовка одного кадра в установившемся режиме.
+// Замер по счетчику выделений текущего потока (ThreadMXBean); если кадр
+// выделяет больше порога, программа завершается с кодом 1.
+// Запуск: java -cp build AllocationBenchmark [порог в байтах]
+public class AllocationBenchmark {
+    private static final long DEFAULT_THRESHOLD_BYTES = 256;
+    private static final int WARMUP_FRAMES = 2000;
+    private static final int MEASURED_FRAMES = 1000;
+
+    public static void main(String[] args) {
+        long threshold = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_THRESHOLD_BYTES;
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadBean.isThreadAllocatedMemorySupported()) {
+            System.out.println("❌ JVM не поддерживает подсчет выделенной памяти потока");
+            System.exit(2);
+        }
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        GamePanel panel = new GamePanel(null);
+        panel.regenerateWorldWithSeed(42);
+        panel.setPlayerSpawnPosition(500, 500);
+        BufferedImage target = new BufferedImage(GameConstants.SCREEN_WIDTH, GameConstants.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = target.createGraphics();
+
+        long mapBytes = measureFrames(threadBean, panel, g2d);
+        // Экран инвентаря рисуется отдельным путем - замеряем и его
+        panel.setInventoryVisible(true);
+        long inventoryBytes = measureFrames(threadBean, panel, g2d);
+        g2d.dispose();
+
+        System.out.println("Выделено за кадр карты: " + mapBytes + " байт (порог " + threshold + ")");
+        System.out.println("Выделено за кадр инвентаря: " + inventoryBytes + " байт (порог " + threshold + ")");
+        if (mapBytes > threshold || inventoryBytes > threshold) {
+            System.out.println("❌ Отрисовка кадра выделяет память больше порога");
+            System.exit(1);
+        }
+        System.out.println("✅ Отрисовка кадра укладывается в порог");
+        System.exit(0);
+    }
+
+    // Средний объем выделений за кадр после прогрева
+    private static long measureFrames(com.sun.management.ThreadMXBean threadBean, GamePanel panel, Graphics2D g2d) {
+        // Прогрев: кэши чанков и интерфейса заполнены, код скомпилирован
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            panel.drawFrame(g2d, 0.5);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            panel.drawFrame(g2d, 0.5);
+        }
+        return (threadBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_FRAMES;
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Загрузка игры: текстуры, подготовка мира и индекс сохранений готовятся
+// параллельно, прогресс считается по весу завершенных этапов.
+// Окно игры создается уже из готовых ресурсов, без работы в потоке интерфейса
+public class BootPipeline {
+    // Веса этапов в процентах; остаток до 100 - создание окна
+    private static final int WEIGHT_TEXTURES = 30;
+    private static final int WEIGHT_WORLD = 50;
+    private static final int WEIGHT_SAVES = 10;
+    public static final int PROGRESS_READY = WEIGHT_TEXTURES + WEIGHT_WORLD + WEIGHT_SAVES;
+
+    public interface ProgressListener {
+        void onProgress(String message, int progress);
+    }
+
+    // Все, что нужно окну игры
+    public static class Result {
+        private final TextureManager textureManager;
+        private final PreparedWorld preparedWorld;
+        private final SaveLoadManager saveManager;
+
+        Result(TextureManager textureManager, PreparedWorld preparedWorld, SaveLoadManager saveManager) {
+            this.textureManager = textureManager;
+            this.preparedWorld = preparedWorld;
+            this.saveManager = saveManager;
+        }
+
+        public TextureManager getTextureManager() {
+            return textureManager;
+        }
+
+        public PreparedWorld getPreparedWorld() {
+            return preparedWorld;
+        }
+
+        public SaveLoadManager getSaveManager() {
+            return saveManager;
+        }
+    }
+
+    private final ProgressListener listener;
+    private final AtomicInteger progress = new AtomicInteger();
+
+    public BootPipeline(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    // Выполняет все этапы и ждет их завершения; ошибка любого этапа пробрасывается
+    public Result run() throws Exception {
+        long start = System.nanoTime();
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r, "boot-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            listener.onProgress("🔄 Загрузка текстур, мира и сохранений...", 0);
+
+            CompletableFuture<TextureManager> textures = stage(executor, "Текстуры", "Текстуры загружены", WEIGHT_TEXTURES,
+                TextureManager::getInstance);
+            CompletableFuture<PreparedWorld> world = stage(executor, "Мир", "Мир подготовлен", WEIGHT_WORLD,
+                () -> PreparedWorld.prepare(System.currentTimeMillis()));
+            CompletableFuture<SaveLoadManager> saves = stage(executor, "Сохранения", "Сохранения найдены", WEIGHT_SAVES, () -> {
+                SaveLoadManager saveManager = new SaveLoadManager();
+                saveManager.scanSaveIndex();
+                return saveManager;
+            });
+
+            Result result = new Result(textures.join(), world.join(), saves.join());
+            System.out.println("⏱ Загрузка ресурсов: " + (System.nanoTime() - start) / 1_000_000 + " мс");
+            return result;
+        } catch (CompletionException e) {
+            // Наружу отдаем исходную ошибку этапа
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> stage(ExecutorService executor, String name, String doneMessage, int weight, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long stageStart = System.nanoTime();
+            T value = work.get();
+            long elapsed = (System.nanoTime() - stageStart) / 1_000_000;
+            System.out.println("⏱ Этап \"" + name + "\": " + elapsed + " мс");
+            listener.onProgress("✅ " + doneMessage, progress.addAndGet(weight));
+            return value;
+        }, executor);
+    }
+}
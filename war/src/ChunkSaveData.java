@@ -0,0 +1,36 @@
+import java.io.Serializable;
+
+public class ChunkSaveData implements Serializable {
+    private static final long serialVersionUID = 2L;
+    
+    private int chunkX;
+    private int chunkY;
+    private byte[] tileIds;
+    private byte[] flags;
+    
+    public ChunkSaveData() {}
+    
+    public ChunkSaveData(WorldChunk chunk) {
+        this.chunkX = chunk.getChunkX();
+        this.chunkY = chunk.getChunkY();
+        this.tileIds = chunk.getTileIds().clone();
+        this.flags = chunk.getFlags().clone();
+    }
+    
+    public WorldChunk toChunk() {
+        return new WorldChunk(chunkX, chunkY, tileIds.clone(), flags.clone());
+    }
+    
+    // Геттеры и сеттеры
+    public int getChunkX() { return chunkX; }
+    public void setChunkX(int chunkX) { this.chunkX = chunkX; }
+    
+    public int getChunkY() { return chunkY; }
+    public void setChunkY(int chunkY) { this.chunkY = chunkY; }
+    
+    public byte[] getTileIds() { return tileIds; }
+    public void setTileIds(byte[] tileIds) { this.tileIds = tileIds; }
+    
+    public byte[] getFlags() { return flags; }
+    public void setFlags(byte[] flags) { this.flags = flags; }
+}
@@ -0,0 +1,414 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class ChunkedWorld {
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int chunksY;
+    private final WorldGenerator generator;
+    private final TerrainIndex terrainIndex;
+
+    // Сгенерированные чанки
+    private final Map<Long, WorldChunk> chunks = new ConcurrentHashMap<>();
+    // Те же чанки по индексу chunkY * chunksX + chunkX: чтение тайла не
+    // упаковывает ключ в Long. Заполняется под блокировкой записи карты
+    private final AtomicReferenceArray<WorldChunk> chunkGrid;
+
+    // Чанки, поставленные в очередь фоновой генерации
+    private final Map<Long, ChunkTask> pendingTasks = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor workers;
+
+    public ChunkedWorld(long worldSeed) {
+        this(worldSeed, GameConstants.MAP_WIDTH, GameConstants.MAP_HEIGHT);
+    }
+
+    public ChunkedWorld(long worldSeed, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + WorldChunk.SIZE - 1) / WorldChunk.SIZE;
+        this.chunksY = (height + WorldChunk.SIZE - 1) / WorldChunk.SIZE;
+        this.chunkGrid = new AtomicReferenceArray<>(chunksX * chunksY);
+        this.generator = new WorldGenerator(worldSeed, width, height);
+        this.terrainIndex = new TerrainIndex(this);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+            GameConstants.CHUNK_WORKER_THREADS, GameConstants.CHUNK_WORKER_THREADS,
+            30, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r, "chunk-generator-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    // ============ ДОСТУП К ТАЙЛАМ ============
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public char getTile(int x, int y) {
+        if (!isInside(x, y)) {
+            return GameConstants.EMPTY;
+        }
+        return getChunk(x / WorldChunk.SIZE, y / WorldChunk.SIZE)
+            .getTile(x % WorldChunk.SIZE, y % WorldChunk.SIZE);
+    }
+
+    public byte getTileId(int x, int y) {
+        if (!isInside(x, y)) {
+            return TilePalette.ID_EMPTY;
+        }
+        return getChunk(x / WorldChunk.SIZE, y / WorldChunk.SIZE)
+            .getTileId(x % WorldChunk.SIZE, y % WorldChunk.SIZE);
+    }
+
+    public void setTileId(int x, int y, byte tileId) {
+        if (!isInside(x, y)) return;
+        WorldChunk chunk = getChunk(x / WorldChunk.SIZE, y / WorldChunk.SIZE);
+        int revision = chunk.getRevision();
+        chunk.setTileId(x % WorldChunk.SIZE, y % WorldChunk.SIZE, tileId);
+        terrainIndex.tilesChanged(chunk, revision, y % WorldChunk.SIZE);
+    }
+
+    public void setTile(int x, int y, char tile) {
+        setTileId(x, y, TilePalette.toId(tile));
+    }
+
+    // Запись прямоугольного блока тайлов (width x height, построчно) с разбиением по чанкам
+    public void writeTiles(int x, int y, int width, int height, byte[] blockTiles) {
+        for (int row = 0; row < height; row++) {
+            int tileY = y + row;
+            if (tileY < 0 || tileY >= this.height) continue;
+
+            int fromX = Math.max(x, 0);
+            int toX = Math.min(x + width, this.width);
+            while (fromX < toX) {
+                int chunkX = fromX / WorldChunk.SIZE;
+                int localX = fromX % WorldChunk.SIZE;
+                int length = Math.min(toX - fromX, WorldChunk.SIZE - localX);
+                WorldChunk chunk = getChunk(chunkX, tileY / WorldChunk.SIZE);
+                int revision = chunk.getRevision();
+                chunk.writeRow(localX, tileY % WorldChunk.SIZE, blockTiles, row * width + (fromX - x), length);
+                terrainIndex.tilesChanged(chunk, revision, tileY % WorldChunk.SIZE);
+                fromX += length;
+            }
+        }
+    }
+
+    public int getBiome(int x, int y) {
+        if (!isInside(x, y)) {
+            return 0;
+        }
+        return getChunk(x / WorldChunk.SIZE, y / WorldChunk.SIZE)
+            .getBiome(x % WorldChunk.SIZE, y % WorldChunk.SIZE);
+    }
+
+    // ============ ЧАНКИ ============
+
+    // Возвращает чанк, при необходимости генерирует его синхронно
+    public WorldChunk getChunk(int chunkX, int chunkY) {
+        WorldChunk chunk = getChunkIfGenerated(chunkX, chunkY);
+        if (chunk != null) {
+            return chunk;
+        }
+        long key = WorldChunk.key(chunkX, chunkY);
+        ChunkTask pending = pendingTasks.remove(key);
+        if (pending != null) {
+            pending.cancel();
+        }
+        return generateChunk(key, chunkX, chunkY);
+    }
+
+    public WorldChunk getChunkIfGenerated(int chunkX, int chunkY) {
+        if (!isChunkInside(chunkX, chunkY)) {
+            return chunks.get(WorldChunk.key(chunkX, chunkY));
+        }
+        return chunkGrid.get(chunkY * chunksX + chunkX);
+    }
+
+    // Генерация идет вне карты: блокировка ячейки карты держится только на
+    // время публикации, а не всей генерации. Если чанк одновременно
+    // сгенерировал другой поток (или он загружен из сохранения), остается
+    // уже опубликованный - генерация детерминирована, результат тот же
+    private WorldChunk generateChunk(long key, int chunkX, int chunkY) {
+        WorldChunk existing = chunks.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        WorldChunk generated = generator.generateChunk(chunkX, chunkY);
+        return chunks.compute(key, (k, published) -> {
+            if (published != null) {
+                return published;
+            }
+            indexChunk(generated);
+            return generated;
+        });
+    }
+
+    private void indexChunk(WorldChunk chunk) {
+        if (isChunkInside(chunk.getChunkX(), chunk.getChunkY())) {
+            chunkGrid.set(chunk.getChunkY() * chunksX + chunk.getChunkX(), chunk);
+        }
+    }
+
+    public boolean isChunkInside(int chunkX, int chunkY) {
+        return chunkX >= 0 && chunkX < chunksX && chunkY >= 0 && chunkY < chunksY;
+    }
+
+    public Collection<WorldChunk> getGeneratedChunks() {
+        return chunks.values();
+    }
+
+    public int getGeneratedChunkCount() {
+        return chunks.size();
+    }
+
+    // Тайлы, измененные после генерации: тройки (x, y, id из палитры).
+    // Остальной мир однозначно восстанавливается из сида
+    public int[] collectModifiedTiles() {
+        int count = 0;
+        for (WorldChunk chunk : chunks.values()) {
+            for (byte flag : chunk.getFlags()) {
+                if ((flag & WorldChunk.FLAG_MODIFIED) != 0) count++;
+            }
+        }
+
+        int[] result = new int[count * 3];
+        int position = 0;
+        for (WorldChunk chunk : chunks.values()) {
+            byte[] tiles = chunk.getTileIds();
+            byte[] flags = chunk.getFlags();
+            int baseX = chunk.getChunkX() * WorldChunk.SIZE;
+            int baseY = chunk.getChunkY() * WorldChunk.SIZE;
+            for (int i = 0; i < WorldChunk.AREA && position < result.length; i++) {
+                if ((flags[i] & WorldChunk.FLAG_MODIFIED) == 0) continue;
+                result[position++] = baseX + i % WorldChunk.SIZE;
+                result[position++] = baseY + i / WorldChunk.SIZE;
+                result[position++] = tiles[i];
+            }
+        }
+        return position == result.length ? result : java.util.Arrays.copyOf(result, position);
+    }
+
+    // Загрузка готового чанка (из сохранения)
+    public void putChunk(WorldChunk chunk) {
+        ChunkTask pending = pendingTasks.remove(chunk.getKey());
+        if (pending != null) {
+            pending.cancel();
+        }
+        chunks.compute(chunk.getKey(), (key, old) -> {
+            indexChunk(chunk);
+            return chunk;
+        });
+        terrainIndex.remove(chunk.getKey());
+    }
+
+    // ============ ФОНОВАЯ ГЕНЕРАЦИЯ ============
+
+    // Обновляет очередь генерации вокруг игроков: ближние чанки в приоритете,
+    // задачи для чанков, от которых игроки ушли, отменяются
+    public void updateFocus(List<Point> focusTiles) {
+        if (focusTiles.isEmpty()) return;
+
+        int radius = GameConstants.CHUNK_LOAD_RADIUS;
+        int keepRadius = radius + GameConstants.CHUNK_UNLOAD_MARGIN;
+
+        for (ChunkTask task : new ArrayList<>(pendingTasks.values())) {
+            int distance = chunkDistance(task.chunkX, task.chunkY, focusTiles);
+            if (distance > keepRadius) {
+                task.cancel();
+                pendingTasks.remove(task.key, task);
+                workers.remove(task);
+            } else if (distance != task.priority) {
+                // Переставляем задачу в очереди с новым приоритетом
+                if (workers.remove(task)) {
+                    task.priority = distance;
+                    workers.execute(task);
+                }
+            }
+        }
+
+        for (Point focus : focusTiles) {
+            int centerChunkX = Math.floorDiv(focus.x, WorldChunk.SIZE);
+            int centerChunkY = Math.floorDiv(focus.y, WorldChunk.SIZE);
+
+            for (int cy = centerChunkY - radius; cy <= centerChunkY + radius; cy++) {
+                for (int cx = centerChunkX - radius; cx <= centerChunkX + radius; cx++) {
+                    if (!isChunkInside(cx, cy)) continue;
+                    long key = WorldChunk.key(cx, cy);
+                    if (chunks.containsKey(key) || pendingTasks.containsKey(key)) continue;
+
+                    ChunkTask task = new ChunkTask(cx, cy, chunkDistance(cx, cy, focusTiles));
+                    pendingTasks.put(key, task);
+                    workers.execute(task);
+                }
+            }
+        }
+    }
+
+    public void updateFocus(int tileX, int tileY) {
+        List<Point> focus = new ArrayList<>();
+        focus.add(new Point(tileX, tileY));
+        updateFocus(focus);
+    }
+
+    // Синхронная генерация квадрата чанков (используется при старте мира).
+    // Полосы чанков генерируются параллельно в fork/join пуле; каждый чанк -
+    // функция сида и своих координат, поэтому результат не зависит от числа потоков
+    public void generateArea(int tileX, int tileY, int radiusChunks) {
+        long startTime = System.nanoTime();
+        int centerChunkX = Math.floorDiv(tileX, WorldChunk.SIZE);
+        int centerChunkY = Math.floorDiv(tileY, WorldChunk.SIZE);
+        int minChunkX = Math.max(0, centerChunkX - radiusChunks);
+        int maxChunkX = Math.min(chunksX - 1, centerChunkX + radiusChunks);
+        int minChunkY = Math.max(0, centerChunkY - radiusChunks);
+        int maxChunkY = Math.min(chunksY - 1, centerChunkY + radiusChunks);
+        if (minChunkX > maxChunkX || minChunkY > maxChunkY) return;
+
+        generator.prepareWaterPlan();
+        WorldGenerator.GENERATION_POOL.invoke(new StripTask(minChunkX, maxChunkX, minChunkY, maxChunkY + 1));
+
+        System.out.println("⏱ Область " + (maxChunkX - minChunkX + 1) + "x" + (maxChunkY - minChunkY + 1) +
+                         " чанков сгенерирована за " + (System.nanoTime() - startTime) / 1_000_000 + " мс (" +
+                         WorldGenerator.GENERATION_POOL.getParallelism() + " потоков)");
+    }
+
+    // Генерация мира целиком (для небольших миров и выделенного сервера)
+    public void generateAll() {
+        long startTime = System.nanoTime();
+        generator.prepareWaterPlan();
+        WorldGenerator.GENERATION_POOL.invoke(new StripTask(0, chunksX - 1, 0, chunksY));
+        System.out.println("⏱ Мир " + chunksX + "x" + chunksY + " чанков сгенерирован за " +
+                         (System.nanoTime() - startTime) / 1_000_000 + " мс");
+    }
+
+    // Делит диапазон строк чанков пополам, пока не останется одна полоса
+    private class StripTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int minChunkX;
+        private final int maxChunkX;
+        private final int fromChunkY;
+        private final int toChunkY;
+
+        StripTask(int minChunkX, int maxChunkX, int fromChunkY, int toChunkY) {
+            this.minChunkX = minChunkX;
+            this.maxChunkX = maxChunkX;
+            this.fromChunkY = fromChunkY;
+            this.toChunkY = toChunkY;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunkY - fromChunkY > 1) {
+                int middle = (fromChunkY + toChunkY) >>> 1;
+                invokeAll(new StripTask(minChunkX, maxChunkX, fromChunkY, middle),
+                          new StripTask(minChunkX, maxChunkX, middle, toChunkY));
+                return;
+            }
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                getChunk(cx, fromChunkY);
+            }
+        }
+    }
+
+    public int getPendingChunkCount() {
+        return pendingTasks.size();
+    }
+
+    public void shutdown() {
+        for (ChunkTask task : pendingTasks.values()) {
+            task.cancel();
+        }
+        pendingTasks.clear();
+        workers.shutdownNow();
+        terrainIndex.clear();
+    }
+
+    private int chunkDistance(int chunkX, int chunkY, List<Point> focusTiles) {
+        int best = Integer.MAX_VALUE;
+        for (Point focus : focusTiles) {
+            int dx = Math.abs(chunkX - Math.floorDiv(focus.x, WorldChunk.SIZE));
+            int dy = Math.abs(chunkY - Math.floorDiv(focus.y, WorldChunk.SIZE));
+            best = Math.min(best, Math.max(dx, dy));
+        }
+        return best;
+    }
+
+    // Задача генерации одного чанка; сортируется по расстоянию до ближайшего игрока
+    private class ChunkTask implements Runnable, Comparable<ChunkTask> {
+        final int chunkX;
+        final int chunkY;
+        final long key;
+        volatile int priority;
+        volatile boolean cancelled = false;
+
+        ChunkTask(int chunkX, int chunkY, int priority) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.key = WorldChunk.key(chunkX, chunkY);
+            this.priority = priority;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            try {
+                if (!chunks.containsKey(key)) {
+                    generateChunk(key, chunkX, chunkY);
+                }
+            } catch (Exception e) {
+                System.out.println("❌ Ошибка генерации чанка " + chunkX + ", " + chunkY + ": " + e.getMessage());
+            } finally {
+                pendingTasks.remove(key, this);
+            }
+        }
+
+        @Override
+        public int compareTo(ChunkTask other) {
+            return Integer.compare(priority, other.priority);
+        }
+    }
+
+    // ============ ГЕТТЕРЫ ============
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getWorldSeed() {
+        return generator.getWorldSeed();
+    }
+
+    public WorldGenerator getGenerator() {
+        return generator;
+    }
+
+    public TerrainIndex getTerrainIndex() {
+        return terrainIndex;
+    }
+}
@@ -0,0 +1,422 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Одна сторона соединения: обмен HELLO и разбор игровых кадров. Как
+// байты попадают в сокет, решают наследники - блокирующий SocketConnection
+// у клиента и NioConnection на хосте
+public abstract class ClientHandler {
+    private final boolean isServerSide;
+    private volatile boolean connected = true;
+    private volatile boolean ready = false; // Обмен HELLO прошел
+    protected final MultiplayerManager multiplayerManager;
+    private volatile int playerId; // Назначает шаг игры, читает поток соединения
+    
+    // Ответы из потока чтения этого соединения
+    private final PacketWriter reply = new PacketWriter();
+    // Все исходящие кадры; в сокет их пишет поток соединения
+    protected final OutboundQueue outbound = new OutboundQueue();
+    
+    // Для сборки больших сохранений
+    private ByteArrayOutputStream saveDataBuffer;
+    private int expectedSaveChunks = 0;
+    private int receivedSaveChunks = 0;
+    
+    // Для приема измененных тайлов мира
+    private int expectedDeltaTiles = 0;
+    private int receivedDeltaTiles = 0;
+
+    // Снимки игроков: на хосте - отправленные этому клиенту (пишет игровой
+    // цикл), у клиента - полученные (пишет поток чтения)
+    private final SnapshotHistory snapshots = new SnapshotHistory();
+    private int lastSentSnapshot = 0;
+    private volatile int lastAckedSnapshot = 0; // Подтверждения приходят в потоке ввода-вывода
+    // Хост: что из мира этому клиенту уже известно (см. InterestManager)
+    private final InterestArea interestArea = new InterestArea();
+
+    protected ClientHandler(boolean isServerSide, MultiplayerManager multiplayerManager) {
+        this.isServerSide = isServerSide;
+        this.multiplayerManager = multiplayerManager;
+    }
+    
+    // Кадр уходит сразу, без ожидания конца шага (из любого потока)
+    public void send(PacketWriter frame) {
+        if (!isConnected()) return;
+        if (outbound.add(frame)) {
+            requestWrite();
+        } else {
+            overflow();
+        }
+    }
+    
+    // Кадр уйдет вместе с остальными кадрами шага при flush
+    public void queue(PacketWriter frame) {
+        if (!isConnected()) return;
+        if (!outbound.stage(frame)) {
+            overflow();
+        }
+    }
+    
+    // Состояние: из кадров с одним ключом до flush доживает последний
+    public void queueLatest(long key, PacketWriter frame) {
+        if (!isConnected()) return;
+        if (!outbound.stageLatest(key, frame)) {
+            overflow();
+        }
+    }
+    
+    // Конец шага: накопленное уходит одной записью
+    public void flush() {
+        if (!isConnected()) return;
+        outbound.flush();
+        if (outbound.hasPending()) {
+            requestWrite();
+        }
+    }
+    
+    // Хост: снимок игроков для этого клиента разницей от последнего
+    // подтвержденного. Если клиенту уже отправлено то же самое, ничего не
+    // ставится. Неотправленный снимок заменяется новым - он сам по себе
+    // полон относительно базового
+    public void queueSnapshot(PlayerSnapshot current, PacketWriter frame) {
+        if (!isConnected() || snapshots.get(lastSentSnapshot).sameAs(current)) return;
+
+        int sequence = lastSentSnapshot + 1;
+        int baseSequence = lastAckedSnapshot;
+        PlayerSnapshot baseline = SnapshotHistory.canDelta(baseSequence, sequence) ? snapshots.get(baseSequence) : null;
+        if (baseline == null) {
+            baseSequence = 0; // Подтверждение слишком старое - снимок целиком
+            baseline = snapshots.get(0);
+        }
+        frame.begin(NetworkProtocol.SNAPSHOT).writeVarInt(sequence).writeVarInt(baseSequence);
+        PlayerSnapshot.writeDelta(baseline, current, frame);
+        snapshots.prepare(sequence).copyFrom(current);
+        lastSentSnapshot = sequence;
+        queueLatest(OutboundQueue.key(NetworkProtocol.SNAPSHOT, 0), frame);
+    }
+
+    // Хост: игрок есть в последнем отправленном этому клиенту снимке
+    public boolean knowsPlayer(int playerId) {
+        return snapshots.get(lastSentSnapshot).indexOf(playerId) >= 0;
+    }
+    
+    InterestArea getInterestArea() {
+        return interestArea;
+    }
+    
+    private void overflow() {
+        System.out.println("❌ Игрок " + playerId + " не успевает принимать данные - отключаем");
+        disconnect();
+    }
+    
+    // В очереди есть что отправить - разбудить поток записи
+    protected abstract void requestWrite();
+    
+    // Закрытие сокета; вызывается один раз из disconnect
+    protected abstract void closeTransport();
+    
+    protected abstract boolean isTransportOpen();
+    
+    // Отключение, когда уже отправленное (например, REJECT) уйдет в сокет
+    protected void disconnectAfterSend() {
+        disconnect();
+    }
+    
+    // Соединение установлено: клиент начинает с HELLO
+    protected void onOpen() {
+        if (!isServerSide) {
+            sendHello();
+        }
+    }
+    
+    // Очередной кадр от другой стороны (поток чтения этого соединения)
+    protected void onFrame(PacketReader packet) throws IOException {
+        if (!ready) {
+            if (!handshake(packet)) {
+                disconnectAfterSend();
+            }
+            return;
+        }
+        handleGameMessage(packet);
+    }
+    
+    // Первый кадр - HELLO другой стороны; хост отвечает своим HELLO или REJECT
+    private boolean handshake(PacketReader packet) throws IOException {
+        if (packet.getOpcode() == NetworkProtocol.REJECT) {
+            System.out.println("❌ Хост отклонил подключение: " + packet.readString());
+            return false;
+        }
+        if (packet.getOpcode() != NetworkProtocol.HELLO || packet.readInt() != NetworkProtocol.MAGIC) {
+            System.out.println("❌ Соединение не по протоколу игры");
+            return false;
+        }
+        int version = packet.readVarInt();
+        if (version != NetworkProtocol.VERSION) {
+            String reason = "версия протокола " + version + ", нужна " + NetworkProtocol.VERSION;
+            System.out.println("❌ Несовместимая версия: " + reason);
+            if (isServerSide) {
+                send(reply.begin(NetworkProtocol.REJECT).writeString(reason));
+            }
+            return false;
+        }
+        
+        if (isServerSide) {
+            sendHello();
+        }
+        ready = true;
+        System.out.println("🤝 Протокол согласован (версия " + version + ")");
+        
+        if (isServerSide) {
+            multiplayerManager.getNetworkManager().onClientReady(this);
+        }
+        return true;
+    }
+    
+    private void sendHello() {
+        send(reply.begin(NetworkProtocol.HELLO)
+            .writeInt(NetworkProtocol.MAGIC)
+            .writeVarInt(NetworkProtocol.VERSION));
+    }
+    
+    private void handleGameMessage(PacketReader packet) throws IOException {
+        if (multiplayerManager == null) return;
+        
+        switch (packet.getOpcode()) {
+            case NetworkProtocol.PLAYER_UPDATE:
+                handlePlayerUpdate(packet);
+                break;
+            case NetworkProtocol.SNAPSHOT:
+                handleSnapshot(packet);
+                break;
+            case NetworkProtocol.SNAPSHOT_ACK:
+                lastAckedSnapshot = packet.readVarInt();
+                break;
+            case NetworkProtocol.PLAYER_ASSIGN:
+                handlePlayerAssign(packet);
+                break;
+            case NetworkProtocol.WORLD_SEED:
+                handleWorldSeed(packet);
+                break;
+            case NetworkProtocol.WORLD_DELTA_START:
+                handleWorldDeltaStart(packet);
+                break;
+            case NetworkProtocol.WORLD_DELTA:
+                handleWorldDelta(packet);
+                break;
+            case NetworkProtocol.WORLD_DELTA_END:
+                handleWorldDeltaEnd();
+                break;
+            case NetworkProtocol.STRUCTURES:
+                handleStructures(packet);
+                break;
+            case NetworkProtocol.WORLD_SAVE_START:
+                handleWorldSaveStart(packet);
+                break;
+            case NetworkProtocol.WORLD_SAVE_CHUNK:
+                handleWorldSaveChunk(packet);
+                break;
+            case NetworkProtocol.WORLD_SAVE_END:
+                handleWorldSaveEnd();
+                break;
+            case NetworkProtocol.PING:
+                send(reply.begin(NetworkProtocol.PONG));
+                System.out.println("🏓 Ответ на ping");
+                break;
+            case NetworkProtocol.PONG:
+                System.out.println("🏓 Получен pong от игрока " + playerId);
+                break;
+            default:
+                // Кадр известной длины - просто пропускаем
+                System.out.println("⚠️ Неизвестный опкод: " + packet.getOpcode());
+                break;
+        }
+    }
+    
+    // Позиция клиента; чей это игрок, хост знает по соединению
+    private void handlePlayerUpdate(PacketReader packet) throws IOException {
+        double x = packet.readPosition();
+        double y = packet.readPosition();
+        int direction = packet.readByte();
+        
+        if (isServerSide && playerId > 0) {
+            multiplayerManager.updateRemotePlayer(playerId, x, y, direction);
+        }
+    }
+    
+    // Снимок игроков от хоста: собираем из базового и подтверждаем. Ответ
+    // уйдет с ближайшим flush, из нескольких неотправленных - последний
+    private void handleSnapshot(PacketReader packet) throws IOException {
+        int sequence = packet.readVarInt();
+        int baseSequence = packet.readVarInt();
+        PlayerSnapshot baseline = SnapshotHistory.canDelta(baseSequence, sequence) ? snapshots.get(baseSequence) : null;
+        if (baseline == null) {
+            System.out.println("⚠️ Снимок " + sequence + " от неизвестного базового " + baseSequence);
+            return;
+        }
+        PlayerSnapshot snapshot = snapshots.prepare(sequence);
+        PlayerSnapshot.readDelta(baseline, packet, snapshot);
+        multiplayerManager.applySnapshot(snapshot);
+        queueLatest(OutboundQueue.key(NetworkProtocol.SNAPSHOT_ACK, 0),
+            reply.begin(NetworkProtocol.SNAPSHOT_ACK).writeVarInt(sequence));
+    }
+    
+    private void handlePlayerAssign(PacketReader packet) throws IOException {
+        this.playerId = packet.readVarInt();
+        double spawnX = packet.readPosition();
+        double spawnY = packet.readPosition();
+        long worldSeed = packet.readLong();
+        
+        System.out.println("🎮 Назначен ID игрока: " + playerId + 
+                         " с позицией спавна: " + spawnX + ", " + spawnY +
+                         " и сидом мира: " + worldSeed);
+        
+        // Устанавливаем позицию спавна и СИД МИРА для этого игрока
+        if (multiplayerManager.getGamePanel() != null) {
+            multiplayerManager.getGamePanel().setPlayerSpawnPosition(spawnX, spawnY);
+            multiplayerManager.getGamePanel().applyHostWorldSeed(worldSeed);
+        }
+    }
+    
+    private void handleWorldSeed(PacketReader packet) throws IOException {
+        long worldSeed = packet.readLong();
+        System.out.println("🌍 Получен сид мира от хоста: " + worldSeed);
+        
+        // Устанавливаем сид мира на клиенте
+        if (multiplayerManager.getGamePanel() != null) {
+            multiplayerManager.getGamePanel().applyHostWorldSeed(worldSeed);
+        }
+    }
+    
+    private void handleWorldDeltaStart(PacketReader packet) throws IOException {
+        expectedDeltaTiles = packet.readVarInt();
+        receivedDeltaTiles = 0;
+        System.out.println("📥 Начало приема измененных тайлов (" + expectedDeltaTiles + ")");
+    }
+    
+    // Пакет разбирается здесь, а тайлы ставит шаг игры - мир меняется
+    // только под gameLock
+    private void handleWorldDelta(PacketReader packet) throws IOException {
+        GamePanel gamePanel = multiplayerManager.getGamePanel();
+        if (gamePanel == null) return;
+        
+        int count = packet.readVarInt();
+        // Тайл занимает в кадре не меньше трех байт
+        if (count > NetworkProtocol.MAX_FRAME_LENGTH / 3) {
+            throw new ProtocolException("Слишком много тайлов в пакете: " + count);
+        }
+        int[] tiles = new int[count * 3];
+        for (int i = 0; i < count; i++) {
+            tiles[i * 3] = packet.readVarInt();
+            tiles[i * 3 + 1] = packet.readVarInt();
+            tiles[i * 3 + 2] = packet.readByte();
+            receivedDeltaTiles++;
+        }
+        gamePanel.postNetworkCommand(() -> {
+            ChunkedWorld world = gamePanel.getWorld();
+            for (int i = 0; i < count; i++) {
+                world.setTileId(tiles[i * 3], tiles[i * 3 + 1], (byte) tiles[i * 3 + 2]);
+            }
+        });
+    }
+    
+    private void handleWorldDeltaEnd() {
+        if (receivedDeltaTiles == expectedDeltaTiles) {
+            System.out.println("✅ Мир синхронизирован с хостом (тайлов: " + receivedDeltaTiles + ")");
+        } else {
+            System.out.println("❌ Получены не все тайлы (" + receivedDeltaTiles + "/" + expectedDeltaTiles + ")");
+        }
+        expectedDeltaTiles = 0;
+        receivedDeltaTiles = 0;
+    }
+    
+    private void handleStructures(PacketReader packet) throws IOException {
+        GamePanel gamePanel = multiplayerManager.getGamePanel();
+        if (gamePanel == null) return;
+        
+        int count = packet.readVarInt();
+        List<StructureInstance> structures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int type = packet.readVarInt();
+            int x = packet.readVarInt();
+            int y = packet.readVarInt();
+            structures.add(new StructureInstance(type, x, y));
+        }
+        gamePanel.postNetworkCommand(() ->
+            gamePanel.getStructureGenerator().applyRemoteStructures(gamePanel.getWorld(), structures));
+        System.out.println("🏘️ Получено построек от хоста: " + structures.size());
+    }
+    
+    private void handleWorldSaveStart(PacketReader packet) throws IOException {
+        expectedSaveChunks = packet.readVarInt();
+        receivedSaveChunks = 0;
+        saveDataBuffer = new ByteArrayOutputStream();
+        System.out.println("📥 Начало приема сохранения мира (частей: " + expectedSaveChunks + ")");
+    }
+    
+    private void handleWorldSaveChunk(PacketReader packet) throws IOException {
+        int chunkIndex = packet.readVarInt();
+        if (saveDataBuffer != null) {
+            packet.readRemainingTo(saveDataBuffer);
+            receivedSaveChunks++;
+            System.out.println("📥 Получена часть сохранения " + (chunkIndex + 1) + "/" + expectedSaveChunks);
+        }
+    }
+    
+    private void handleWorldSaveEnd() {
+        if (saveDataBuffer != null && receivedSaveChunks == expectedSaveChunks) {
+            System.out.println("✅ Получено все сохранение мира (" + saveDataBuffer.size() + " байт)");
+            
+            // Импортируем сохранение
+            if (multiplayerManager.getGamePanel() != null) {
+                multiplayerManager.getGamePanel().importWorldState(
+                    new String(saveDataBuffer.toByteArray(), StandardCharsets.UTF_8));
+            }
+            
+            // Очищаем буфер
+            saveDataBuffer = null;
+            expectedSaveChunks = 0;
+            receivedSaveChunks = 0;
+        } else {
+            System.out.println("❌ Не все части сохранения получены (" + receivedSaveChunks + "/" + expectedSaveChunks + ")");
+        }
+    }
+    
+    public void disconnect() {
+        if (!connected) return;
+        connected = false;
+        outbound.close();
+        closeTransport();
+        
+        if (multiplayerManager != null && playerId > 0) {
+            // Как и назначение, в шаге игры - после него по порядку очереди
+            int leftPlayerId = playerId;
+            GamePanel gamePanel = multiplayerManager.getGamePanel();
+            if (gamePanel != null) {
+                gamePanel.postNetworkCommand(() -> multiplayerManager.removeRemotePlayer(leftPlayerId));
+            } else {
+                multiplayerManager.removeRemotePlayer(leftPlayerId);
+            }
+        }
+        System.out.println("🔌 Игрок " + playerId + " отключился");
+    }
+    
+    public boolean isConnected() {
+        return connected && isTransportOpen();
+    }
+    
+    // Соединение готово к игровым кадрам
+    public boolean isReady() {
+        return ready && isConnected();
+    }
+    
+    public int getPlayerId() {
+        return playerId;
+    }
+    
+    public void setPlayerId(int playerId) {
+        this.playerId = playerId;
+    }
+}
@@ -4,6 +4,29 @@ public class GameConstants {
     // Размеры всей карты
     public static final int MAP_WIDTH = 1000;
     public static final int MAP_HEIGHT = 1000;
+    
+    // Чанки мира (мир хранится кусками и генерируется по мере необходимости)
+    public static final int CHUNK_SIZE = 16;           // Размер чанка в тайлах
+    public static final int CHUNK_LOAD_RADIUS = 4;     // Радиус предзагрузки вокруг игроков (в чанках)
+    public static final int CHUNK_UNLOAD_MARGIN = 2;   // Запас, после которого незавершенная генерация отменяется
+    public static final int ACTIVE_REGION_RADIUS = 4;  // Полная симуляция вокруг игроков (в чанках)
+    public static final int COARSE_REGION_RADIUS = 8;  // Грубая симуляция до этого радиуса, дальше мир заморожен
+    public static final int INTEREST_RADIUS = 3;       // Зона, о которой хост сообщает клиенту: экран (~2 чанка) и чанк запаса
+    public static final int SPAWN_SEARCH_RADIUS = 8;   // Радиус поиска ближайшего места для появления
+    public static final int SPATIAL_CELL_SIZE = 8;     // Клетка сетки поиска сущностей (тайлы)
+    public static final int STRUCTURE_MIN_DISTANCE = 40; // Минимальное расстояние между постройками (тайлы)
+    public static final int STRUCTURE_BORDER = 10;       // Отступ построек от края мира
+    public static final int CHUNK_WORKER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // Игровой цикл (можно переопределить через -Dgame.tickRate=... и -Dgame.frameBudgetMs=...)
+    public static final int TICK_RATE = Integer.getInteger("game.tickRate", 20);          // Шагов симуляции в секунду
+    public static final int FRAME_BUDGET_MS = Integer.getInteger("game.frameBudgetMs", 16); // Время на кадр (~60 кадров/с)
+    public static final int MAX_CATCH_UP_TICKS = 5;   // Сколько пропущенных шагов догонять за один кадр
+    public static final int TERRAIN_CACHE_CHUNKS = 24; // Сколько отрисованных чанков держать в памяти (~1 МБ каждый)
+    public static final int GENERATION_PARALLELISM = Runtime.getRuntime().availableProcessors(); // Потоки fork/join генерации
+    public static final int SIMULATION_PARALLELISM = Integer.getInteger("game.simulationThreads",
+        Runtime.getRuntime().availableProcessors()); // Потоки параллельного обновления сущностей
+    public static final int NETWORK_IO_THREADS = Integer.getInteger("game.networkThreads",
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2))); // Потоки ввода-вывода сервера
 
     // В класс GameConstants добавьте:
     public static final double ATTACK_RANGE = 3.0; // Дальность атаки в тайлах
@@ -127,4 +150,18 @@ public class GameConstants {
             default: return null;
         }
     }
+    
+    // Спрайт атласа для terrain (TextureManager.SPRITE_NONE, если текстуры нет)
+    public static int getTerrainSprite(char terrain) {
+        switch (terrain) {
+            case GRASS: return TextureManager.SPRITE_GRASS;
+            case TREE: return TextureManager.SPRITE_TREE;
+            case WATER: return TextureManager.SPRITE_WATER;
+            case STONE: return TextureManager.SPRITE_STONE;
+            case WOOD_PLANK: return TextureManager.SPRITE_WOOD_PLANK;
+            case GLASS: return TextureManager.SPRITE_GLASS;
+            case ROOFED: return TextureManager.SPRITE_ROOF;
+            default: return TextureManager.SPRITE_NONE;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+import java.util.concurrent.locks.LockSupport;
+
+// Игровой цикл в двух потоках. Поток симуляции идет фиксированными шагами
+// (после задержки шаги догоняются, но не больше maxCatchUpTicks подряд) и
+// после каждого шага публикует снимок для рисования. Поток рисования рисует
+// кадры по своему бюджету с долей alpha от последнего шага; долгий шаг
+// симуляции не задерживает кадры - они просто дольше показывают прошлый снимок
+public class GameLoop {
+    public interface Game {
+        // Один шаг симуляции (поток симуляции)
+        void tick();
+
+        // Кадр (поток рисования); alpha в [0, 1] - сколько прошло от последнего шага до следующего
+        void render(double alpha);
+    }
+
+    private final Game game;
+    private final long tickNanos;
+    private final long frameNanos;
+    private final int maxCatchUpTicks;
+
+    // Текущий запуск; потоки старого запуска, увидев замену, завершаются сами
+    private volatile Object session;
+    private Thread simulationThread;
+    private Thread renderThread;
+
+    // Время, к которому относится последний шаг (по System.nanoTime)
+    private volatile long lastTickNanos;
+
+    // Статистика за последнюю секунду
+    private volatile int framesPerSecond = 0;
+    private volatile int ticksPerSecond = 0;
+
+    public GameLoop(Game game, int tickRate, int frameBudgetMs, int maxCatchUpTicks) {
+        this.game = game;
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.frameNanos = frameBudgetMs * 1_000_000L;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    public synchronized void start() {
+        if (session != null) return;
+        Object current = new Object();
+        session = current;
+        lastTickNanos = System.nanoTime();
+
+        simulationThread = new Thread(() -> runSimulation(current), "game-simulation");
+        simulationThread.setDaemon(true);
+        renderThread = new Thread(() -> runRender(current), "game-render");
+        renderThread.setDaemon(true);
+        simulationThread.start();
+        renderThread.start();
+    }
+
+    // Не ждет завершения потоков: остановка может прийти из шага симуляции
+    // или из кода, который держит блокировку игры, нужную для последнего шага
+    public synchronized void stop() {
+        session = null;
+        if (simulationThread != null) {
+            LockSupport.unpark(simulationThread);
+            LockSupport.unpark(renderThread);
+            simulationThread = null;
+            renderThread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return session != null;
+    }
+
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    public int getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    private void runSimulation(Object current) {
+        long nextTick = System.nanoTime();
+        long statsStart = nextTick;
+        int ticks = 0;
+        long droppedTicks = 0;
+
+        while (session == current) {
+            long now = System.nanoTime();
+
+            // Отстали слишком сильно (например, долгое сохранение) - пропускаем шаги
+            long behind = (now - nextTick) / tickNanos;
+            if (behind > maxCatchUpTicks) {
+                droppedTicks += behind - maxCatchUpTicks;
+                nextTick += (behind - maxCatchUpTicks) * tickNanos;
+            }
+
+            while (now - nextTick >= 0 && session == current) {
+                game.tick();
+                lastTickNanos = nextTick;
+                nextTick += tickNanos;
+                ticks++;
+            }
+
+            if (now - statsStart >= 1_000_000_000L) {
+                ticksPerSecond = ticks;
+                ticks = 0;
+                statsStart = now;
+            }
+
+            long sleep = nextTick - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+
+        if (droppedTicks > 0) {
+            System.out.println("⏱ Игровой цикл пропустил шагов: " + droppedTicks);
+        }
+    }
+
+    private void runRender(Object current) {
+        long statsStart = System.nanoTime();
+        int frames = 0;
+
+        while (session == current) {
+            long frameStart = System.nanoTime();
+            double alpha = Math.min(1.0, Math.max(0.0, (double) (frameStart - lastTickNanos) / tickNanos));
+            game.render(alpha);
+            frames++;
+
+            if (frameStart - statsStart >= 1_000_000_000L) {
+                framesPerSecond = frames;
+                frames = 0;
+                statsStart = frameStart;
+            }
+
+            // Оставшееся от бюджета кадра время спим
+            long sleep = frameStart + frameNanos - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+}
@@ -20,10 +20,16 @@ public class GameSaveData implements Serializable {
     private char[][] mapData;
     private int[][] biomeData;
     
+    // Сгенерированные чанки (mapData/biomeData остаются для старых сохранений)
+    private int worldWidth = GameConstants.MAP_WIDTH;
+    private int worldHeight = GameConstants.MAP_HEIGHT;
+    private List<ChunkSaveData> chunksData;
+    
     // Данные кроликов
     private List<RabbitSaveData> rabbitsData;
     
-    // Данные структур
+    // Данные структур (поля дома - для старых сохранений)
+    private List<StructureInstance> structures;
     private boolean houseGenerated;
     private int houseX;
     private int houseY;
@@ -68,9 +74,21 @@ public class GameSaveData implements Serializable {
     public int[][] getBiomeData() { return biomeData; }
     public void setBiomeData(int[][] biomeData) { this.biomeData = biomeData; }
     
+    public int getWorldWidth() { return worldWidth; }
+    public void setWorldWidth(int worldWidth) { this.worldWidth = worldWidth; }
+    
+    public int getWorldHeight() { return worldHeight; }
+    public void setWorldHeight(int worldHeight) { this.worldHeight = worldHeight; }
+    
+    public List<ChunkSaveData> getChunksData() { return chunksData; }
+    public void setChunksData(List<ChunkSaveData> chunksData) { this.chunksData = chunksData; }
+    
     public List<RabbitSaveData> getRabbitsData() { return rabbitsData; }
     public void setRabbitsData(List<RabbitSaveData> rabbitsData) { this.rabbitsData = rabbitsData; }
     
+    public List<StructureInstance> getStructures() { return structures; }
+    public void setStructures(List<StructureInstance> structures) { this.structures = structures; }
+    
     public boolean isHouseGenerated() { return houseGenerated; }
     public void setHouseGenerated(boolean houseGenerated) { this.houseGenerated = houseGenerated; }
     
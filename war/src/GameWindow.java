@@ -17,10 +17,15 @@ public class GameWindow {
     private boolean isPaused = false;
     
     public GameWindow() {
-        initialize();
+        this(null);
     }
     
-    private void initialize() {
+    // Ресурсы, подготовленные при загрузке (может быть null - тогда все создается здесь)
+    public GameWindow(BootPipeline.Result boot) {
+        initialize(boot);
+    }
+    
+    private void initialize(BootPipeline.Result boot) {
         frame = new JFrame("Genesis Mundi - Living World Simulation");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setResizable(false);
@@ -31,7 +36,9 @@ public class GameWindow {
         
         // Создаем экраны
         menuPanel = new MainMenuPanel();
-        gamePanel = new GamePanel(this);
+        gamePanel = boot != null
+            ? new GamePanel(this, boot.getPreparedWorld(), boot.getSaveManager())
+            : new GamePanel(this);
         settingsPanel = new SettingsPanel();
         lobbyPanel = new MultiplayerLobbyPanel();
         pausePanel = new PauseMenuPanel(); // Новая панель паузы
@@ -168,10 +175,12 @@ public class GameWindow {
             gamePanel.stopGame();
         }
         
-        // Устанавливаем случайный сид для одиночной игры
-        long worldSeed = System.currentTimeMillis();
-        gamePanel.setWorldSeed(worldSeed);
-        System.out.println("🌍 Установлен сид одиночной игры: " + worldSeed);
+        // Первая игра берет мир, подготовленный при загрузке; дальше - новый случайный сид
+        if (!gamePanel.takePreparedWorld()) {
+            long worldSeed = System.currentTimeMillis();
+            gamePanel.setWorldSeed(worldSeed);
+        }
+        System.out.println("🌍 Установлен сид одиночной игры: " + gamePanel.getWorldSeed());
         
         cardLayout.show(mainPanel, "Game");
         gamePanel.startGame();
@@ -201,10 +210,12 @@ public class GameWindow {
         
         boolean success;
         if (createGame) {
-            // Для хоста: устанавливаем сид и создаем игру
-            long worldSeed = System.currentTimeMillis();
-            gamePanel.setWorldSeed(worldSeed);
-            System.out.println("🌍 Хост установил сид мира: " + worldSeed);
+            // Для хоста: устанавливаем сид (или берем подготовленный мир) и создаем игру
+            if (!gamePanel.takePreparedWorld()) {
+                long worldSeed = System.currentTimeMillis();
+                gamePanel.setWorldSeed(worldSeed);
+            }
+            System.out.println("🌍 Хост установил сид мира: " + gamePanel.getWorldSeed());
             
             success = gamePanel.startMultiplayerGame(true);
         } else {
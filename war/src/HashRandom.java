@@ -0,0 +1,53 @@
+// Счетчиковый генератор случайных чисел на основе хеширования (SplitMix64).
+// Результат зависит только от сида и номера вызова (или координат), поэтому
+// одинаков на любой машине и при любом порядке генерации
+public class HashRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    
+    // Соли для разных этапов генерации
+    public static final int SALT_VEGETATION = 1;
+    public static final int SALT_LAKES = 2;
+    public static final int SALT_RIVERS = 3;
+    public static final int SALT_RABBITS = 4;
+    public static final int SALT_STRUCTURES = 5;
+    public static final int SALT_NOISE = 6;
+    public static final int SALT_SPAWN = 7;
+    
+    private final long seed;
+    private long counter = 0;
+    
+    public HashRandom(long seed) {
+        this.seed = seed;
+    }
+    
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    // Хеш координаты тайла для заданного этапа генерации
+    public static long hash(long seed, int x, int y, int salt) {
+        long h = mix(seed + salt * GOLDEN_GAMMA);
+        h = mix(h ^ ((long) x * 0x632BE59BD9B4E019L));
+        return mix(h ^ ((long) y * 0x85157AF5L));
+    }
+    
+    // Случайное число [0, 1) для координаты тайла
+    public static double unit(long seed, int x, int y, int salt) {
+        return (hash(seed, x, y, salt) >>> 11) * 0x1.0p-53;
+    }
+    
+    public long nextLong() {
+        counter++;
+        return mix(seed + counter * GOLDEN_GAMMA);
+    }
+    
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+    
+    public int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) % bound);
+    }
+}
@@ -0,0 +1,314 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Интерфейс внизу экрана (панель и хотбар) как отдельный слой: он рисуется
+// во внеэкранное изображение, только когда меняется что-то из показанного,
+// а в каждом кадре изображение просто копируется на экран
+public class HudLayer {
+    private static final int PANEL_Y = GameConstants.SCREEN_HEIGHT - GameConstants.UI_PANEL_HEIGHT;
+    private static final int HOTBAR_Y = PANEL_Y - 50;
+    // Верх слоя - верх фона хотбара
+    private static final int LAYER_Y = HOTBAR_Y - 10;
+    private static final int LAYER_HEIGHT = GameConstants.SCREEN_HEIGHT - LAYER_Y;
+    private static final int HOTBAR_SLOTS = GameConstants.INVENTORY_COLS;
+
+    private static final Font HEADER_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font VALUE_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Font SMALL_FONT = new Font("Arial", Font.PLAIN, 11);
+    private static final Font SMALL_BOLD_FONT = new Font("Arial", Font.BOLD, 11);
+    private static final Color SEPARATOR_COLOR = new Color(80, 80, 120, 100);
+    private static final Color BAR_BORDER_COLOR = new Color(40, 40, 40);
+    private static final Color HOTBAR_BACKGROUND = new Color(40, 40, 60, 220);
+    private static final Color HOTBAR_BORDER = new Color(100, 100, 150);
+    private static final Color SLOT_SELECTED = new Color(100, 150, 255, 150);
+    private static final Color SLOT_SELECTED_BORDER = new Color(200, 220, 255);
+    private static final Color SLOT_BACKGROUND = new Color(80, 80, 100);
+    private static final Color SLOT_BORDER = new Color(140, 140, 160);
+    private static final BasicStroke BORDER_STROKE = new BasicStroke(2);
+
+    // Значения, которые показывает интерфейс. Координаты хранятся в десятых
+    // долях клетки - с той точностью, с которой выводятся
+    public static class State {
+        public int health;
+        public int hunger;
+        public int level;
+        public int experience;
+        public long tenthsX;
+        public long tenthsY;
+        public String biomeName = "";
+        public int visibleRabbits;
+        public String selectedItemName = "";
+        public int selectedSlot;
+        public final int[] hotbarItems = new int[HOTBAR_SLOTS];
+        public String networkMode = "";
+        public int playerCount;
+
+        public void setPosition(double x, double y) {
+            tenthsX = Math.round(x * 10);
+            tenthsY = Math.round(y * 10);
+        }
+
+        boolean sameAs(State other) {
+            if (health != other.health || hunger != other.hunger ||
+                level != other.level || experience != other.experience ||
+                tenthsX != other.tenthsX || tenthsY != other.tenthsY ||
+                visibleRabbits != other.visibleRabbits || selectedSlot != other.selectedSlot ||
+                playerCount != other.playerCount) {
+                return false;
+            }
+            for (int i = 0; i < HOTBAR_SLOTS; i++) {
+                if (hotbarItems[i] != other.hotbarItems[i]) return false;
+            }
+            return biomeName.equals(other.biomeName) &&
+                   selectedItemName.equals(other.selectedItemName) &&
+                   networkMode.equals(other.networkMode);
+        }
+
+        void copyFrom(State other) {
+            health = other.health;
+            hunger = other.hunger;
+            level = other.level;
+            experience = other.experience;
+            tenthsX = other.tenthsX;
+            tenthsY = other.tenthsY;
+            biomeName = other.biomeName;
+            visibleRabbits = other.visibleRabbits;
+            selectedItemName = other.selectedItemName;
+            selectedSlot = other.selectedSlot;
+            System.arraycopy(other.hotbarItems, 0, hotbarItems, 0, HOTBAR_SLOTS);
+            networkMode = other.networkMode;
+            playerCount = other.playerCount;
+        }
+    }
+
+    private final State shown = new State();
+    private BufferedImage image;
+    private int renderCount = 0;
+
+    // Добавляет в слой интерфейс для state; изображение перерисовывается,
+    // только если state отличается от показанного в прошлый раз
+    public void queue(RenderLayer layer, GraphicsConfiguration config, State state) {
+        if (image == null) {
+            image = createImage(config);
+            render(state);
+        } else if (!state.sameAs(shown)) {
+            render(state);
+        }
+        layer.image(0, image, 0, LAYER_Y);
+    }
+
+    // Следующий кадр перерисует слой заново
+    public void invalidate() {
+        image = null;
+    }
+
+    // Сколько раз слой перерисовывался (для замеров)
+    public int getRenderCount() {
+        return renderCount;
+    }
+
+    private BufferedImage createImage(GraphicsConfiguration config) {
+        if (config != null) {
+            return config.createCompatibleImage(GameConstants.SCREEN_WIDTH, LAYER_HEIGHT, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(GameConstants.SCREEN_WIDTH, LAYER_HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    private void render(State state) {
+        shown.copyFrom(state);
+        renderCount++;
+
+        Graphics2D g2d = image.createGraphics();
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.setComposite(AlphaComposite.SrcOver);
+
+        // Рисуем в экранных координатах
+        g2d.translate(0, -LAYER_Y);
+        // Сглаживание только здесь - в кадре слой просто копируется
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        drawPanelBackground(g2d);
+
+        // Три колонки: показатели персонажа, мир, инвентарь и сеть
+        int currentY = PANEL_Y + GameConstants.UI_MARGIN;
+        drawPlayerStats(g2d, GameConstants.UI_MARGIN, currentY);
+        drawWorldInfo(g2d, GameConstants.SCREEN_WIDTH / 3, currentY);
+        drawInventoryAndMultiplayer(g2d, (GameConstants.SCREEN_WIDTH * 2) / 3, currentY);
+
+        drawHotbar(g2d, HOTBAR_Y);
+        g2d.dispose();
+    }
+
+    private void drawPanelBackground(Graphics2D g2d) {
+        g2d.setColor(GameConstants.UI_BACKGROUND);
+        g2d.fillRoundRect(0, PANEL_Y, GameConstants.SCREEN_WIDTH, GameConstants.UI_PANEL_HEIGHT, 20, 20);
+
+        g2d.setColor(GameConstants.UI_BORDER);
+        g2d.setStroke(BORDER_STROKE);
+        g2d.drawRoundRect(2, PANEL_Y + 2, GameConstants.SCREEN_WIDTH - 4, GameConstants.UI_PANEL_HEIGHT - 4, 18, 18);
+
+        // Разделительные линии между колонками
+        g2d.setColor(SEPARATOR_COLOR);
+        g2d.drawLine(GameConstants.SCREEN_WIDTH / 3, PANEL_Y + 10,
+                     GameConstants.SCREEN_WIDTH / 3, PANEL_Y + GameConstants.UI_PANEL_HEIGHT - 10);
+        g2d.drawLine((GameConstants.SCREEN_WIDTH * 2) / 3, PANEL_Y + 10,
+                     (GameConstants.SCREEN_WIDTH * 2) / 3, PANEL_Y + GameConstants.UI_PANEL_HEIGHT - 10);
+    }
+
+    private void drawPlayerStats(Graphics2D g2d, int x, int y) {
+        drawSectionHeader(g2d, x, y, "СТАТУС ПЕРСОНАЖА");
+        y += 25;
+
+        drawStatBar(g2d, x, y, "❤️ ЗДОРОВЬЕ", shown.health, GameConstants.PLAYER_MAX_HEALTH,
+                    GameConstants.HEALTH_COLOR, GameConstants.HEALTH_BG_COLOR);
+        y += GameConstants.UI_ELEMENT_HEIGHT + 5;
+
+        drawStatBar(g2d, x, y, "🍖 СЫТОСТЬ", shown.hunger, GameConstants.MAX_HUNGER,
+                    GameConstants.HUNGER_COLOR, GameConstants.HUNGER_BG_COLOR);
+        y += GameConstants.UI_ELEMENT_HEIGHT + 5;
+
+        // Уровень и опыт
+        g2d.setColor(GameConstants.LABEL_COLOR);
+        g2d.setFont(LABEL_FONT);
+        g2d.drawString("⭐ УРОВЕНЬ " + shown.level, x, y + 15);
+
+        g2d.setColor(GameConstants.TEXT_COLOR);
+        g2d.setFont(SMALL_FONT);
+        g2d.drawString("Опыт: " + shown.experience, x + 120, y + 15);
+    }
+
+    private void drawWorldInfo(Graphics2D g2d, int x, int y) {
+        drawSectionHeader(g2d, x, y, "ИНФОРМАЦИЯ О МИРЕ");
+        y += 25;
+
+        drawInfoText(g2d, x, y, "📍 КООРДИНАТЫ:",
+                     String.format("X: %.1f, Y: %.1f", shown.tenthsX / 10.0, shown.tenthsY / 10.0));
+        y += GameConstants.UI_ELEMENT_HEIGHT;
+
+        drawInfoText(g2d, x, y, "🌿 БИОМ:", shown.biomeName);
+        y += GameConstants.UI_ELEMENT_HEIGHT;
+
+        drawInfoText(g2d, x, y, "🐇 КРОЛИКИ РЯДОМ:", String.valueOf(shown.visibleRabbits));
+    }
+
+    private void drawInventoryAndMultiplayer(Graphics2D g2d, int x, int y) {
+        drawSectionHeader(g2d, x, y, "ИНВЕНТАРЬ И СЕТЬ");
+        y += 25;
+
+        drawInfoText(g2d, x, y, "🎒 ВЫБРАНО:", shown.selectedItemName);
+        y += GameConstants.UI_ELEMENT_HEIGHT;
+
+        drawInfoText(g2d, x, y, "🔢 СЛОТ:",
+                     (shown.selectedSlot + 1) + "/" + (GameConstants.INVENTORY_ROWS * GameConstants.INVENTORY_COLS));
+        y += GameConstants.UI_ELEMENT_HEIGHT;
+
+        drawInfoText(g2d, x, y, "🌐 РЕЖИМ:", shown.networkMode);
+        y += GameConstants.UI_ELEMENT_HEIGHT;
+
+        // Кол-во игроков показываем только в мультиплеере
+        if (shown.playerCount > 0) {
+            drawInfoText(g2d, x, y, "👥 ИГРОКОВ:", shown.playerCount + " в сети");
+        }
+    }
+
+    private void drawHotbar(Graphics2D g2d, int y) {
+        int hotbarWidth = HOTBAR_SLOTS * 50;
+        int startX = (GameConstants.SCREEN_WIDTH - hotbarWidth) / 2;
+
+        g2d.setColor(HOTBAR_BACKGROUND);
+        g2d.fillRoundRect(startX - 10, y - 10, hotbarWidth + 20, 60, 15, 15);
+
+        g2d.setColor(HOTBAR_BORDER);
+        g2d.setStroke(BORDER_STROKE);
+        g2d.drawRoundRect(startX - 10, y - 10, hotbarWidth + 20, 60, 15, 15);
+
+        for (int i = 0; i < HOTBAR_SLOTS; i++) {
+            int slotX = startX + i * 50;
+
+            if (i == shown.selectedSlot) {
+                g2d.setColor(SLOT_SELECTED);
+                g2d.fillRoundRect(slotX, y, 45, 45, 10, 10);
+                g2d.setColor(SLOT_SELECTED_BORDER);
+            } else {
+                g2d.setColor(SLOT_BACKGROUND);
+                g2d.fillRoundRect(slotX, y, 45, 45, 10, 10);
+                g2d.setColor(SLOT_BORDER);
+            }
+            g2d.drawRoundRect(slotX, y, 45, 45, 10, 10);
+
+            drawHotbarItem(g2d, slotX, y, shown.hotbarItems[i]);
+
+            // Номер слота
+            g2d.setColor(Color.WHITE);
+            g2d.setFont(SMALL_BOLD_FONT);
+            g2d.drawString(String.valueOf(i + 1), slotX + 5, y + 15);
+        }
+    }
+
+    private void drawHotbarItem(Graphics2D g2d, int slotX, int slotY, int itemId) {
+        if (itemId <= 0 || itemId > GameConstants.ITEM_NAMES.length) return;
+
+        TextureManager textureManager = TextureManager.getInstance();
+        int spriteId = textureManager.getSpriteId(GameConstants.getTextureName(itemId));
+        int itemSize = 35;
+        int itemX = slotX + (45 - itemSize) / 2;
+        int itemY = slotY + (45 - itemSize) / 2;
+
+        if (spriteId != TextureManager.SPRITE_NONE) {
+            try {
+                textureManager.drawSprite(g2d, spriteId, itemX, itemY, itemSize);
+                return;
+            } catch (Exception e) {
+                System.out.println("Ошибка рисования текстуры в хотбаре: " + e.getMessage());
+            }
+        }
+
+        g2d.setColor(Color.BLUE);
+        g2d.fillRect(itemX, itemY, itemSize, itemSize);
+    }
+
+    private void drawSectionHeader(Graphics2D g2d, int x, int y, String text) {
+        g2d.setColor(GameConstants.LABEL_COLOR);
+        g2d.setFont(HEADER_FONT);
+        g2d.drawString(text, x, y);
+    }
+
+    private void drawStatBar(Graphics2D g2d, int x, int y, String label,
+                             int current, int max, Color fillColor, Color bgColor) {
+        g2d.setColor(GameConstants.LABEL_COLOR);
+        g2d.setFont(LABEL_FONT);
+        g2d.drawString(label, x, y + 15);
+
+        g2d.setColor(bgColor);
+        g2d.fillRoundRect(x + 120, y, GameConstants.UI_BAR_WIDTH, GameConstants.UI_BAR_HEIGHT, 10, 10);
+
+        int filledWidth = (int) (GameConstants.UI_BAR_WIDTH * ((double) current / max));
+        if (filledWidth > 0) {
+            g2d.setColor(fillColor);
+            g2d.fillRoundRect(x + 120, y, filledWidth, GameConstants.UI_BAR_HEIGHT, 10, 10);
+        }
+
+        g2d.setColor(BAR_BORDER_COLOR);
+        g2d.drawRoundRect(x + 120, y, GameConstants.UI_BAR_WIDTH, GameConstants.UI_BAR_HEIGHT, 10, 10);
+
+        // Текст значения по центру бара
+        g2d.setColor(GameConstants.TEXT_COLOR);
+        g2d.setFont(SMALL_BOLD_FONT);
+        String valueText = current + " / " + max;
+        int textWidth = g2d.getFontMetrics().stringWidth(valueText);
+        g2d.drawString(valueText, x + 120 + (GameConstants.UI_BAR_WIDTH - textWidth) / 2, y + 14);
+    }
+
+    private void drawInfoText(Graphics2D g2d, int x, int y, String label, String value) {
+        g2d.setColor(GameConstants.LABEL_COLOR);
+        g2d.setFont(LABEL_FONT);
+        g2d.drawString(label, x, y + 15);
+
+        g2d.setColor(GameConstants.TEXT_COLOR);
+        g2d.setFont(VALUE_FONT);
+        g2d.drawString(value, x + 120, y + 15);
+    }
+}
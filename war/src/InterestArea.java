@@ -0,0 +1,10 @@
+import java.util.BitSet;
+
+// Зона интереса одного клиента: центр (чанк его игрока) и чанки, тайлы
+// которых ему уже отправлены. Меняется только игровым циклом хоста
+public class InterestArea {
+    final BitSet knownChunks = new BitSet();
+    int centerX;
+    int centerY;
+    boolean initialized = false;
+}
@@ -0,0 +1,142 @@
+import java.util.Arrays;
+
+// Зоны интереса клиентов на хосте: клиенту уходят только игроки и
+// измененные тайлы в квадрате INTEREST_RADIUS чанков вокруг его игрока.
+// Игроки раскладываются по сетке с клеткой в один чанк, поэтому и работа
+// хоста, и трафик на клиента зависят от того, сколько игроков рядом с ним,
+// а не от общего числа игроков.
+//
+// Вход и выход из зоны:
+//   - игрок появляется в снимке клиента всеми полями и пропадает из него
+//     отметкой REMOVED (см. PlayerSnapshot);
+//   - чанк при входе присылает свои измененные тайлы, при выходе
+//     забывается и при следующем входе придет заново.
+// Выходят на чанк дальше, чем входят, - стоящий на границе не входит и не
+// выходит на каждом шаге
+public class InterestManager {
+    public static final int ENTER_RADIUS = GameConstants.INTEREST_RADIUS;
+    public static final int LEAVE_RADIUS = ENTER_RADIUS + 1;
+
+    private final MultiplayerManager multiplayerManager;
+    // Размером с мир хоста; пересоздается, если мир сменился на другой размер
+    private SpatialGrid<Void> players;
+    private int playersWidth;
+    private int playersHeight;
+    // Номер игрока в снимке мира по номеру в сетке
+    private int[] snapshotIndexes = new int[16];
+    private PlayerSnapshot world;
+
+    // Измененные тайлы вошедших чанков: тройки x, y, id
+    private int[] tiles = new int[3 * 256];
+    private int tileCount = 0;
+
+    public InterestManager(MultiplayerManager multiplayerManager) {
+        this.multiplayerManager = multiplayerManager;
+    }
+
+    // Начало рассылки шага: игроки мира размером worldWidth x worldHeight
+    // тайлов раскладываются по чанкам
+    public void index(PlayerSnapshot world, int worldWidth, int worldHeight) {
+        this.world = world;
+        if (players == null || playersWidth != worldWidth || playersHeight != worldHeight) {
+            players = new SpatialGrid<>(worldWidth, worldHeight, GameConstants.CHUNK_SIZE);
+            playersWidth = worldWidth;
+            playersHeight = worldHeight;
+        }
+        players.clear();
+        for (int i = 0; i < world.size(); i++) {
+            int handle = players.add(null, NetworkProtocol.dequantize(world.getX(i)), NetworkProtocol.dequantize(world.getY(i)));
+            if (handle >= snapshotIndexes.length) {
+                snapshotIndexes = Arrays.copyOf(snapshotIndexes, Math.max(handle + 1, snapshotIndexes.length * 2));
+            }
+            snapshotIndexes[handle] = i;
+        }
+    }
+
+    // Снимок для клиента с игроком в (x, y): игроки в его зоне, кроме него самого
+    public void collectPlayers(ClientHandler client, double x, double y, PlayerSnapshot target) {
+        target.clear();
+        int centerX = chunkOf(x);
+        int centerY = chunkOf(y);
+        int count = players.queryRect(
+            (centerX - LEAVE_RADIUS) * (double) GameConstants.CHUNK_SIZE,
+            (centerY - LEAVE_RADIUS) * (double) GameConstants.CHUNK_SIZE,
+            (centerX + LEAVE_RADIUS + 1) * (double) GameConstants.CHUNK_SIZE,
+            (centerY + LEAVE_RADIUS + 1) * (double) GameConstants.CHUNK_SIZE);
+        for (int r = 0; r < count; r++) {
+            int handle = players.getResultHandle(r);
+            int index = snapshotIndexes[handle];
+            int id = world.getId(index);
+            if (id == client.getPlayerId()) continue;
+
+            int distance = Math.max(Math.abs(chunkOf(players.getX(handle)) - centerX),
+                                    Math.abs(chunkOf(players.getY(handle)) - centerY));
+            if (distance <= ENTER_RADIUS || client.knowsPlayer(id)) {
+                target.add(id, world.getX(index), world.getY(index), world.getDirection(index));
+            }
+        }
+    }
+
+    // Клиент перешел в другой чанк: вошедшие в зону чанки присылают
+    // измененные тайлы, вышедшие забываются. Первая зона клиента - это его
+    // начальная синхронизация мира
+    public void updateChunks(ClientHandler client, double x, double y, ChunkedWorld chunkedWorld) {
+        InterestArea area = client.getInterestArea();
+        int centerX = chunkOf(x);
+        int centerY = chunkOf(y);
+        if (area.initialized && area.centerX == centerX && area.centerY == centerY) return;
+
+        int chunksX = (chunkedWorld.getWidth() + GameConstants.CHUNK_SIZE - 1) / GameConstants.CHUNK_SIZE;
+        if (area.initialized) {
+            for (int cy = area.centerY - LEAVE_RADIUS; cy <= area.centerY + LEAVE_RADIUS; cy++) {
+                for (int cx = area.centerX - LEAVE_RADIUS; cx <= area.centerX + LEAVE_RADIUS; cx++) {
+                    if (!chunkedWorld.isChunkInside(cx, cy)) continue;
+                    if (Math.max(Math.abs(cx - centerX), Math.abs(cy - centerY)) > LEAVE_RADIUS) {
+                        area.knownChunks.clear(cy * chunksX + cx);
+                    }
+                }
+            }
+        }
+
+        tileCount = 0;
+        for (int cy = centerY - ENTER_RADIUS; cy <= centerY + ENTER_RADIUS; cy++) {
+            for (int cx = centerX - ENTER_RADIUS; cx <= centerX + ENTER_RADIUS; cx++) {
+                if (!chunkedWorld.isChunkInside(cx, cy)) continue;
+                int chunk = cy * chunksX + cx;
+                if (area.knownChunks.get(chunk)) continue;
+                area.knownChunks.set(chunk);
+                // Чанк, который хост еще не генерировал, не изменен
+                WorldChunk generated = chunkedWorld.getChunkIfGenerated(cx, cy);
+                if (generated != null) {
+                    collectModifiedTiles(generated);
+                }
+            }
+        }
+
+        multiplayerManager.sendWorldDelta(client, tiles, tileCount, !area.initialized);
+        area.centerX = centerX;
+        area.centerY = centerY;
+        area.initialized = true;
+    }
+
+    private void collectModifiedTiles(WorldChunk chunk) {
+        byte[] tileIds = chunk.getTileIds();
+        byte[] flags = chunk.getFlags();
+        int baseX = chunk.getChunkX() * WorldChunk.SIZE;
+        int baseY = chunk.getChunkY() * WorldChunk.SIZE;
+        for (int i = 0; i < WorldChunk.AREA; i++) {
+            if ((flags[i] & WorldChunk.FLAG_MODIFIED) == 0) continue;
+            if ((tileCount + 1) * 3 > tiles.length) {
+                tiles = Arrays.copyOf(tiles, tiles.length * 2);
+            }
+            tiles[tileCount * 3] = baseX + i % WorldChunk.SIZE;
+            tiles[tileCount * 3 + 1] = baseY + i / WorldChunk.SIZE;
+            tiles[tileCount * 3 + 2] = tileIds[i];
+            tileCount++;
+        }
+    }
+
+    private static int chunkOf(double coordinate) {
+        return Math.floorDiv((int) Math.floor(coordinate), GameConstants.CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,74 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Экран инвентаря как готовое изображение: затемнение, панель и подсказка
+// рисуются во внеэкранное изображение, только когда меняются предметы или
+// выбранный слот, а в каждом кадре изображение просто копируется на экран
+public class InventoryLayer {
+    private static final Color DIM_COLOR = new Color(0, 0, 0, 200);
+    private static final Font HINT_FONT = new Font("Arial", Font.PLAIN, 16);
+    private static final String HINT_TEXT = "Нажми E для закрытия инвентаря";
+
+    private final int[][] shownItems = new int[GameConstants.INVENTORY_ROWS][GameConstants.INVENTORY_COLS];
+    private int shownSlot;
+    private BufferedImage image;
+
+    // Рисует экран инвентаря поверх фона background; изображение
+    // перерисовывается, только если инвентарь изменился с прошлого раза
+    public void draw(Graphics2D g, Color background, InventoryPanel panel) {
+        if (image == null) {
+            image = createImage(g.getDeviceConfiguration());
+            render(background, panel);
+        } else if (!sameAs(panel)) {
+            render(background, panel);
+        }
+        g.drawImage(image, 0, 0, null);
+    }
+
+    private boolean sameAs(InventoryPanel panel) {
+        if (panel.getSelectedSlot() != shownSlot) return false;
+        for (int row = 0; row < GameConstants.INVENTORY_ROWS; row++) {
+            for (int col = 0; col < GameConstants.INVENTORY_COLS; col++) {
+                if (panel.inventory[row][col] != shownItems[row][col]) return false;
+            }
+        }
+        return true;
+    }
+
+    private BufferedImage createImage(GraphicsConfiguration config) {
+        if (config != null) {
+            return config.createCompatibleImage(GameConstants.SCREEN_WIDTH, GameConstants.SCREEN_HEIGHT);
+        }
+        return new BufferedImage(GameConstants.SCREEN_WIDTH, GameConstants.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private void render(Color background, InventoryPanel panel) {
+        shownSlot = panel.getSelectedSlot();
+        for (int row = 0; row < GameConstants.INVENTORY_ROWS; row++) {
+            System.arraycopy(panel.inventory[row], 0, shownItems[row], 0, GameConstants.INVENTORY_COLS);
+        }
+
+        Graphics2D g2d = image.createGraphics();
+        // Кадр под инвентарем очищен фоном панели игры - затемняем его
+        g2d.setColor(background);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.setColor(DIM_COLOR);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+        Dimension size = panel.getPreferredSize();
+        int invX = (GameConstants.SCREEN_WIDTH - size.width) / 2;
+        int invY = (GameConstants.SCREEN_HEIGHT - size.height) / 2;
+
+        Graphics2D panelGraphics = (Graphics2D) g2d.create();
+        panelGraphics.translate(invX, invY);
+        panel.paint(panelGraphics);
+        panelGraphics.dispose();
+
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(HINT_FONT);
+        g2d.drawString(HINT_TEXT,
+                      GameConstants.SCREEN_WIDTH / 2 - 150,
+                      GameConstants.SCREEN_HEIGHT - 30);
+        g2d.dispose();
+    }
+}
@@ -1,8 +1,14 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 
 public class InventoryPanel extends JPanel {
+    // Шрифты, цвета и подписи слотов создаются один раз: панель рисуется каждый кадр
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font SLOT_NUMBER_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Font ITEM_NAME_FONT = new Font("Arial", Font.BOLD, 9);
+    private static final Color SLOT_BACKGROUND = new Color(100, 100, 100);
+    private static final String[] SLOT_LABELS = createSlotLabels();
+    
     public int[][] inventory;
     private int selectedSlot = 0;
     
@@ -13,10 +19,21 @@ public class InventoryPanel extends JPanel {
         ));
         setBackground(new Color(30, 30, 30));
         setOpaque(true);
+        // Панель не добавляется в окно, а рисуется экраном инвентаря напрямую -
+        // без размера paint() ничего бы не нарисовал
+        setSize(getPreferredSize());
         
         initializeInventory();
     }
     
+    private static String[] createSlotLabels() {
+        String[] labels = new String[GameConstants.INVENTORY_ROWS * GameConstants.INVENTORY_COLS];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = String.valueOf(i + 1);
+        }
+        return labels;
+    }
+    
     private void initializeInventory() {
         inventory = new int[GameConstants.INVENTORY_ROWS][GameConstants.INVENTORY_COLS];
         
@@ -38,7 +55,7 @@ public class InventoryPanel extends JPanel {
         
         // Заголовок
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 16));
+        g2d.setFont(TITLE_FONT);
         g2d.drawString("ИНВЕНТАРЬ", startX, startY);
         startY += 25;
         
@@ -56,7 +73,7 @@ public class InventoryPanel extends JPanel {
         int slotIndex = row * GameConstants.INVENTORY_COLS + col;
         
         // Фон слота
-        g2d.setColor(new Color(100, 100, 100));
+        g2d.setColor(SLOT_BACKGROUND);
         g2d.fillRect(slotX, slotY, GameConstants.INVENTORY_SLOT_SIZE, GameConstants.INVENTORY_SLOT_SIZE);
         
         // Рамка слота
@@ -75,31 +92,29 @@ public class InventoryPanel extends JPanel {
         
         // Номер слота
         g2d.setColor(Color.LIGHT_GRAY);
-        g2d.setFont(new Font("Arial", Font.PLAIN, 10));
-        g2d.drawString(String.valueOf(slotIndex + 1), slotX + 3, slotY + 12);
+        g2d.setFont(SLOT_NUMBER_FONT);
+        g2d.drawString(SLOT_LABELS[slotIndex], slotX + 3, slotY + 12);
     }
     
     private void drawItemInSlot(Graphics2D g2d, int slotX, int slotY, int itemId) {
-        String textureName = GameConstants.getTextureName(itemId);
+        TextureManager textureManager = TextureManager.getInstance();
+        int spriteId = textureManager.getSpriteId(GameConstants.getTextureName(itemId));
         String itemName = GameConstants.ITEM_NAMES[itemId - 1];
         
         // Пробуем нарисовать текстуру
-        if (textureName != null) {
+        if (spriteId != TextureManager.SPRITE_NONE) {
             try {
-                BufferedImage texture = TextureManager.getInstance().getTexture(textureName);
-                if (texture != null) {
-                    int textureSize = GameConstants.INVENTORY_SLOT_SIZE - 8;
-                    int textureX = slotX + (GameConstants.INVENTORY_SLOT_SIZE - textureSize) / 2;
-                    int textureY = slotY + (GameConstants.INVENTORY_SLOT_SIZE - textureSize) / 2;
-                    
-                    g2d.drawImage(texture, textureX, textureY, textureSize, textureSize, null);
-                    
-                    // Подписываем название
-                    g2d.setColor(Color.WHITE);
-                    g2d.setFont(new Font("Arial", Font.BOLD, 9));
-                    g2d.drawString(itemName, slotX + 2, slotY + GameConstants.INVENTORY_SLOT_SIZE - 2);
-                    return;
-                }
+                int textureSize = GameConstants.INVENTORY_SLOT_SIZE - 8;
+                int textureX = slotX + (GameConstants.INVENTORY_SLOT_SIZE - textureSize) / 2;
+                int textureY = slotY + (GameConstants.INVENTORY_SLOT_SIZE - textureSize) / 2;
+                
+                textureManager.drawSprite(g2d, spriteId, textureX, textureY, textureSize);
+                
+                // Подписываем название
+                g2d.setColor(Color.WHITE);
+                g2d.setFont(ITEM_NAME_FONT);
+                g2d.drawString(itemName, slotX + 2, slotY + GameConstants.INVENTORY_SLOT_SIZE - 2);
+                return;
             } catch (Exception e) {
                 System.out.println("Ошибка рисования текстуры: " + e.getMessage());
             }
@@ -114,7 +129,7 @@ public class InventoryPanel extends JPanel {
         
         // Название предмета
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 9));
+        g2d.setFont(ITEM_NAME_FONT);
         g2d.drawString(itemName, slotX + 5, slotY + GameConstants.INVENTORY_SLOT_SIZE - 5);
     }
     
@@ -20,19 +20,17 @@ public class Main {
             splashScreen.showSplash();
         });
         
-        // Имитируем начальную загрузку
-        simulateInitialLoading();
-        
-        // Запускаем игру в отдельном потоке
+        // Загружаем ресурсы в фоне: этапы идут параллельно, прогресс - реальный
         new Thread(() -> {
             try {
-                // Загрузка основных ресурсов
-                loadGameResources();
+                long bootStart = System.nanoTime();
+                BootPipeline.Result boot = new BootPipeline(Main::updateSplashProgress).run();
+                updateSplashProgress("🔄 Подготовка интерфейса...", BootPipeline.PROGRESS_READY);
                 
                 // Создаем главное окно в EDT
                 SwingUtilities.invokeLater(() -> {
                     try {
-                        createAndShowGame();
+                        createAndShowGame(boot, bootStart);
                     } catch (Exception e) {
                         handleGameError(e);
                     }
@@ -41,64 +39,24 @@ public class Main {
             } catch (Exception e) {
                 handleGameError(e);
             }
-        }).start();
-    }
-    
-    private static void simulateInitialLoading() {
-        try {
-            // Имитация начальной загрузки ядра игры
-            System.out.println("🔧 Инициализация ядра игры...");
-            Thread.sleep(800);
-            
-            System.out.println("🔧 Проверка системных требований...");
-            Thread.sleep(400);
-            
-            System.out.println("🔧 Загрузка конфигурации...");
-            Thread.sleep(600);
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-    
-    private static void loadGameResources() {
-        try {
-            updateSplashProgress("🔄 Загрузка текстур...", 20);
-            Thread.sleep(800);
-            
-            updateSplashProgress("🔄 Инициализация мира...", 40);
-            Thread.sleep(700);
-            
-            updateSplashProgress("🔄 Загрузка игровых механик...", 60);
-            Thread.sleep(600);
-            
-            updateSplashProgress("🔄 Подготовка интерфейса...", 80);
-            Thread.sleep(500);
-            
-            updateSplashProgress("🔄 Финальная настройка...", 95);
-            Thread.sleep(300);
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        }, "boot").start();
     }
     
-    private static void createAndShowGame() {
+    private static void createAndShowGame(BootPipeline.Result boot, long bootStart) {
         try {
             System.out.println("🎮 Создание игрового окна...");
+            long windowStart = System.nanoTime();
             
-            // Создаем главное окно
-            GameWindow gameWindow = new GameWindow();
-            
-            // Небольшая задержка для плавности перед скрытием прелоадера
-            Thread.sleep(500);
+            // Создаем главное окно из подготовленных ресурсов
+            GameWindow gameWindow = new GameWindow(boot);
+            System.out.println("⏱ Этап \"Окно\": " + (System.nanoTime() - windowStart) / 1_000_000 + " мс");
             
             // Скрываем прелоадер
             if (splashScreen != null) {
                 splashScreen.hideSplash();
             }
             
-            System.out.println("✅ Игра успешно запущена!");
+            System.out.println("✅ Игра успешно запущена за " + (System.nanoTime() - bootStart) / 1_000_000 + " мс");
             System.out.println("=================================");
             
             // Дополнительная информация о системе
@@ -109,12 +67,15 @@ public class Main {
         }
     }
     
+    // Вызывается из потоков загрузки; сам экран обновляется в EDT
     private static void updateSplashProgress(String message, int progress) {
         System.out.println(message);
         
-        // Если бы у нашего SplashScreen были методы для обновления прогресса
-        // мы бы вызвали их здесь. Например:
-        // splashScreen.updateProgress(message, progress);
+        SwingUtilities.invokeLater(() -> {
+            if (splashScreen != null) {
+                splashScreen.updateProgress(message, progress);
+            }
+        });
     }
     
     private static void handleGameError(Exception e) {
@@ -1,5 +1,7 @@
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MultiplayerManager {
     private NetworkManager network;
@@ -7,9 +9,22 @@ public class MultiplayerManager {
     private int localPlayerId;
     private boolean isMultiplayer = false;
     private GamePanel gamePanel;
+    
+    // Кадр позиции игрока собирается каждый шаг - буфер переиспользуется
+    private final PacketWriter positionFrame = new PacketWriter();
+    // Клиент: последняя отправленная хосту позиция (в единицах протокола)
+    private int sentX, sentY, sentDirection;
+    private boolean positionSent = false;
+    
+    // Хост: все игроки на этом шаге и снимок для одного клиента (его зона интереса)
+    private final PlayerSnapshot worldSnapshot = new PlayerSnapshot();
+    private final PlayerSnapshot clientSnapshot = new PlayerSnapshot();
+    private final PacketWriter snapshotFrame = new PacketWriter();
+    private final InterestManager interest = new InterestManager(this);
+    private final PacketWriter deltaFrame = new PacketWriter();
  
     public MultiplayerManager() {
-        remotePlayers = new HashMap<>();
+        remotePlayers = new ConcurrentHashMap<>(); // Меняется сетевым потоком, читается игровым циклом
         network = new NetworkManager(this);
     }
     
@@ -53,25 +68,93 @@ public class MultiplayerManager {
         if (network.connectToServer(ip)) {
             isMultiplayer = true;
             localPlayerId = 2; // Клиент - игрок 2
+            positionSent = false;
             System.out.println("🎮 Присоединились к игре " + ip);
             return true;
         }
         return false;
     }
     
+    // Конец шага: хост рассылает снимки игроков, клиент - свою позицию,
+    // если она изменилась. Стоящий игрок ничего не стоит в трафике
     public void updatePlayerPosition(double x, double y, int direction) {
+        if (!isMultiplayer) return;
+        if (isServer()) {
+            replicatePlayers(x, y, direction);
+            return;
+        }
+        
+        int qx = NetworkProtocol.quantize(x);
+        int qy = NetworkProtocol.quantize(y);
+        if (positionSent && qx == sentX && qy == sentY && direction == sentDirection) return;
+        // Новая позиция заменяет еще не отправленную
+        positionSent = network.broadcastLatest(OutboundQueue.key(NetworkProtocol.PLAYER_UPDATE, localPlayerId),
+            positionFrame.begin(NetworkProtocol.PLAYER_UPDATE)
+                .writePosition(x)
+                .writePosition(y)
+                .writeByte(direction));
+        sentX = qx;
+        sentY = qy;
+        sentDirection = direction;
+    }
+    
+    // Хост: каждому клиенту - игроки и измененные тайлы в его зоне интереса
+    private void replicatePlayers(double x, double y, int direction) {
+        worldSnapshot.clear();
+        worldSnapshot.add(localPlayerId, NetworkProtocol.quantize(x), NetworkProtocol.quantize(y), direction);
+        for (MultiplayerPlayer player : remotePlayers.values()) {
+            worldSnapshot.add(player.getPlayerId(), NetworkProtocol.quantize(player.getX()),
+                NetworkProtocol.quantize(player.getY()), player.getDirection());
+        }
+        ChunkedWorld world = gamePanel != null ? gamePanel.getWorld() : null;
+        interest.index(worldSnapshot,
+            world != null ? world.getWidth() : GameConstants.MAP_WIDTH,
+            world != null ? world.getHeight() : GameConstants.MAP_HEIGHT);
+        for (ClientHandler client : network.getClients()) {
+            MultiplayerPlayer clientPlayer = client.isReady() ? remotePlayers.get(client.getPlayerId()) : null;
+            if (clientPlayer == null) continue;
+            
+            if (world != null) {
+                interest.updateChunks(client, clientPlayer.getX(), clientPlayer.getY(), world);
+            }
+            interest.collectPlayers(client, clientPlayer.getX(), clientPlayer.getY(), clientSnapshot);
+            client.queueSnapshot(clientSnapshot, snapshotFrame);
+        }
+    }
+    
+    // Клиент: игроки из снимка хоста. В снимке только игроки рядом: кто
+    // появился - вошел в зону видимости, кого не стало - вышел или отключился
+    public void applySnapshot(PlayerSnapshot snapshot) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            int playerId = snapshot.getId(i);
+            double x = NetworkProtocol.dequantize(snapshot.getX(i));
+            double y = NetworkProtocol.dequantize(snapshot.getY(i));
+            MultiplayerPlayer player = remotePlayers.get(playerId);
+            if (player == null) {
+                player = new MultiplayerPlayer(playerId, x, y);
+                remotePlayers.put(playerId, player);
+                System.out.println("👀 Игрок " + playerId + " рядом: " + x + ", " + y);
+            }
+            player.updatePosition(x, y, snapshot.getDirection(i));
+        }
+        for (Integer playerId : remotePlayers.keySet()) {
+            if (snapshot.indexOf(playerId) < 0) {
+                remotePlayers.remove(playerId);
+                System.out.println("👀 Игрок " + playerId + " вне зоны видимости");
+            }
+        }
+    }
+    
+    // Конец игрового шага: все поставленное в очереди клиентов уходит
+    public void flush() {
         if (isMultiplayer) {
-            String message = String.format(java.util.Locale.US, "PLAYER_UPDATE:%d:%.2f:%.2f:%d", 
-                localPlayerId, x, y, direction);
-            network.broadcastMessage(message);
-            System.out.println("📤 Отправлена позиция: " + message);
+            network.flush();
         }
     }
     
     public void sendWorldSeed(long worldSeed) {
         if (isMultiplayer) {
-            String message = "WORLD_SEED:" + worldSeed;
-            network.broadcastMessage(message);
+            network.broadcast(new PacketWriter().begin(NetworkProtocol.WORLD_SEED).writeLong(worldSeed));
             System.out.println("🌍 Отправлен сид мира: " + worldSeed);
         }
     }
@@ -79,46 +162,79 @@ public class MultiplayerManager {
     // Отправка сида мира конкретному клиенту
     public void sendWorldSeedToClient(ClientHandler client, long worldSeed) {
         if (isMultiplayer && client != null) {
-            String message = "WORLD_SEED:" + worldSeed;
-            network.sendToClient(client, message);
+            network.sendToClient(client, new PacketWriter().begin(NetworkProtocol.WORLD_SEED).writeLong(worldSeed));
             System.out.println("🌍 Отправлен сид мира клиенту " + client.getPlayerId() + ": " + worldSeed);
         }
     }
     
-    // Отправка сохранения мира клиенту
+    // Отправка сохранения мира клиенту частями по SAVE_CHUNK_BYTES
     public void sendWorldSave(ClientHandler client, String saveData) {
         if (isMultiplayer && client != null) {
-            // Разделяем большие данные на части для надежной передачи
-            int chunkSize = 1000;
-            int totalChunks = (int) Math.ceil((double) saveData.length() / chunkSize);
+            byte[] bytes = saveData.getBytes(StandardCharsets.UTF_8);
+            int chunkSize = NetworkProtocol.SAVE_CHUNK_BYTES;
+            int totalChunks = (bytes.length + chunkSize - 1) / chunkSize;
             
             System.out.println("📦 Отправка сохранения клиенту " + client.getPlayerId() + 
-                             " (частей: " + totalChunks + ", размер: " + saveData.length() + ")");
-            
-            // Отправляем количество частей
-            client.sendMessage("WORLD_SAVE_START:" + totalChunks);
+                             " (частей: " + totalChunks + ", размер: " + bytes.length + ")");
             
-            // Отправляем части
+            PacketWriter frame = new PacketWriter();
+            client.send(frame.begin(NetworkProtocol.WORLD_SAVE_START).writeVarInt(totalChunks));
             for (int i = 0; i < totalChunks; i++) {
                 int start = i * chunkSize;
-                int end = Math.min(start + chunkSize, saveData.length());
-                String chunk = saveData.substring(start, end);
-                client.sendMessage("WORLD_SAVE_CHUNK:" + i + ":" + chunk);
-                
-                // Небольшая задержка между частями
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+                int length = Math.min(chunkSize, bytes.length - start);
+                client.send(frame.begin(NetworkProtocol.WORLD_SAVE_CHUNK).writeVarInt(i).writeBytes(bytes, start, length));
             }
-            
-            // Отправляем подтверждение завершения
-            client.sendMessage("WORLD_SAVE_END");
+            client.send(frame.begin(NetworkProtocol.WORLD_SAVE_END));
             System.out.println("✅ Сохранение отправлено клиенту " + client.getPlayerId());
         }
     }
     
+    // Отправка измененных тайлов клиенту: пачки по tilesPerMessage троек x, y, id.
+    // Начальная синхронизация обрамляется START/END и уходит сразу, тайлы
+    // вошедших в зону чанков - вместе с остальными кадрами шага
+    public void sendWorldDelta(ClientHandler client, int[] modifiedTiles, int tileCount, boolean initial) {
+        if (isMultiplayer && client != null && (initial || tileCount > 0)) {
+            int tilesPerMessage = 1024;
+            
+            PacketWriter frame = deltaFrame;
+            if (initial) {
+                client.send(frame.begin(NetworkProtocol.WORLD_DELTA_START).writeVarInt(tileCount));
+            }
+            for (int start = 0; start < tileCount; start += tilesPerMessage) {
+                int count = Math.min(tilesPerMessage, tileCount - start);
+                frame.begin(NetworkProtocol.WORLD_DELTA).writeVarInt(count);
+                for (int i = start; i < start + count; i++) {
+                    frame.writeVarInt(modifiedTiles[i * 3])
+                         .writeVarInt(modifiedTiles[i * 3 + 1])
+                         .writeByte(modifiedTiles[i * 3 + 2]);
+                }
+                if (initial) {
+                    client.send(frame);
+                } else {
+                    client.queue(frame);
+                }
+            }
+            if (initial) {
+                client.send(frame.begin(NetworkProtocol.WORLD_DELTA_END));
+            }
+            System.out.println("📦 Клиенту " + client.getPlayerId() + " отправлено измененных тайлов: " + tileCount);
+        }
+    }
+    
+    // Отправка реестра построек клиенту: число, затем тип, x, y каждой
+    public void sendStructures(ClientHandler client, List<StructureInstance> structures) {
+        if (isMultiplayer && client != null) {
+            PacketWriter frame = new PacketWriter().begin(NetworkProtocol.STRUCTURES).writeVarInt(structures.size());
+            for (StructureInstance structure : structures) {
+                frame.writeVarInt(structure.getType())
+                     .writeVarInt(structure.getX())
+                     .writeVarInt(structure.getY());
+            }
+            client.send(frame);
+            System.out.println("🏘️ Клиенту " + client.getPlayerId() + " отправлено построек: " + structures.size());
+        }
+    }
+    
     // Отправка сохранения мира всем игрокам
     public void sendWorldSaveToAll() {
         if (isMultiplayer && gamePanel != null) {
@@ -145,8 +261,9 @@ public class MultiplayerManager {
                     if (client.getPlayerId() == playerId) {
                         sendWorldSeedToClient(client, worldSeed);
                         
-                        // Также отправляем полное сохранение мира для полной синхронизации
-                        sendWorldSave(client, gamePanel.exportWorldState());
+                        // Мир клиент генерирует сам по сиду; измененные тайлы
+                        // вокруг него дошлет зона интереса на ближайшем шаге
+                        sendStructures(client, gamePanel.getStructureGenerator().getRegistry().getAll());
                         break;
                     }
                 }
@@ -154,15 +271,12 @@ public class MultiplayerManager {
         }
     }
     
+    // Поток соединения. Игроков создает только назначение в шаге игры,
+    // поэтому позиция еще не добавленного или уже ушедшего игрока отбрасывается
     public void updateRemotePlayer(int playerId, double x, double y, int direction) {
         MultiplayerPlayer player = remotePlayers.get(playerId);
         if (player != null) {
             player.updatePosition(x, y, direction);
-        } else {
-            // Если игрок не найден, создаем нового
-            System.out.println("🎮 Игрок не найден, создаем нового: ID=" + playerId);
-            addRemotePlayer(playerId, x, y);
-            updateRemotePlayer(playerId, x, y, direction);
         }
     }
     
@@ -236,6 +350,7 @@ public class MultiplayerManager {
 class MultiplayerPlayer {
     private int playerId;
     private double x, y;
+    private double previousX, previousY; // Позиция на предыдущем шаге (для интерполяции кадров)
     private int direction;
     private String name;
     
@@ -243,6 +358,8 @@ class MultiplayerPlayer {
         this.playerId = playerId;
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
         this.name = "Игрок " + playerId;
         this.direction = GameConstants.DIRECTION_DOWN;
     }
@@ -270,6 +387,21 @@ class MultiplayerPlayer {
         return direction; 
     }
     
+    // Координаты для кадра между шагами: alpha = 0 - прошлый шаг, 1 - текущий
+    public double getRenderX(double alpha) {
+        return previousX + (x - previousX) * alpha;
+    }
+    
+    public double getRenderY(double alpha) {
+        return previousY + (y - previousY) * alpha;
+    }
+    
+    // Запоминает позицию в начале шага игрового цикла
+    public void storePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
+    
     public String getName() { 
         return name; 
     }
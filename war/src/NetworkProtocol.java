@@ -0,0 +1,55 @@
+// Двоичный сетевой протокол. Каждое сообщение - кадр:
+//   длина (varint) | опкод (1 байт) | поля
+// Числа без знака (id, количества) - varint, со знаком - zigzag varint,
+// координаты - фиксированная точка с шагом 1/POSITION_SCALE тайла.
+//
+// Первым кадром обе стороны шлют HELLO с сигнатурой и версией; хост
+// отвечает своим HELLO или REJECT с причиной и закрывает соединение.
+// До обмена HELLO никакие другие кадры не отправляются.
+//
+// Игроков хост передает снимками (SNAPSHOT): номер снимка, номер базового
+// снимка, который клиент уже подтвердил (SNAPSHOT_ACK), и разница с ним
+// (см. PlayerSnapshot). Если клиент уже получил текущее состояние, снимок
+// не отправляется. Клиент шлет хосту свою позицию (PLAYER_UPDATE), только
+// когда она изменилась. Игроки и измененные тайлы уходят клиенту только
+// в пределах его зоны интереса (см. InterestManager)
+public class NetworkProtocol {
+    public static final int MAGIC = 0x57415231; // "WAR1"
+    public static final int VERSION = 2;
+
+    public static final int MAX_FRAME_LENGTH = 1 << 20; // Больше - ошибка протокола
+    // Хост получает от клиентов только короткие кадры; буфер чтения соединения
+    // на хосте рассчитан ровно на один такой кадр
+    public static final int MAX_CLIENT_FRAME_LENGTH = 16 * 1024;
+    // Предел неотправленных байтов на одно соединение хоста
+    public static final int MAX_PENDING_OUTBOUND = 1 << 20;
+    public static final int SAVE_CHUNK_BYTES = 16 * 1024; // Размер части сохранения мира
+    public static final int POSITION_SCALE = 256;
+
+    // ============ ОПКОДЫ ============
+
+    public static final int HELLO = 1;             // сигнатура (4 байта), версия
+    public static final int REJECT = 2;            // причина (строка)
+    public static final int PLAYER_ASSIGN = 3;     // id, x, y, сид (8 байт)
+    public static final int WORLD_SEED = 4;        // сид (8 байт)
+    public static final int PLAYER_UPDATE = 5;     // x, y, направление (1 байт); от клиента
+    public static final int WORLD_DELTA_START = 6; // число тайлов
+    public static final int WORLD_DELTA = 7;       // число тайлов, затем x, y, id (1 байт)
+    public static final int WORLD_DELTA_END = 8;
+    public static final int STRUCTURES = 9;        // число построек, затем тип, x, y
+    public static final int WORLD_SAVE_START = 10; // число частей
+    public static final int WORLD_SAVE_CHUNK = 11; // номер части, байты
+    public static final int WORLD_SAVE_END = 12;
+    public static final int PING = 13;
+    public static final int PONG = 14;
+    public static final int SNAPSHOT = 15;         // номер, номер базового снимка, разница игроков
+    public static final int SNAPSHOT_ACK = 16;     // номер полученного снимка
+
+    public static int quantize(double coordinate) {
+        return (int) Math.round(coordinate * POSITION_SCALE);
+    }
+
+    public static double dequantize(int value) {
+        return value / (double) POSITION_SCALE;
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+// Соединение хоста с клиентом поверх неблокирующего канала. Читает и
+// разбирает кадры поток ввода-вывода; исходящие кадры копятся в очереди
+// соединения (см. OutboundQueue), и тот же поток пишет их в сокет, когда
+// канал готов. Память ограничена: кадр от клиента не длиннее
+// MAX_CLIENT_FRAME_LENGTH, очередь - не больше MAX_PENDING_OUTBOUND
+public class NioConnection extends ClientHandler {
+    private final SocketChannel channel;
+    private SelectionKey key;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(NetworkProtocol.MAX_CLIENT_FRAME_LENGTH + 5);
+    private final PacketReader packet = new PacketReader();
+    private volatile boolean closing = false; // Закрыть, как только очередь опустеет
+
+    NioConnection(SocketChannel channel, MultiplayerManager multiplayerManager) {
+        super(true, multiplayerManager);
+        this.channel = channel;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    // Канал готов к чтению: дочитываем, разбираем все целые кадры, остаток
+    // неполного кадра ждет следующего чтения
+    void onReadable() {
+        try {
+            if (channel.read(readBuffer) < 0) {
+                disconnect();
+                return;
+            }
+            readBuffer.flip();
+            while (isConnected() && !closing && packet.readFrame(readBuffer, NetworkProtocol.MAX_CLIENT_FRAME_LENGTH)) {
+                onFrame(packet);
+            }
+            readBuffer.compact();
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка чтения сообщения: " + e.getMessage());
+            disconnect();
+        }
+    }
+
+    // Канал готов к записи: пишем сколько примет, остальное - в следующий раз.
+    // Интерес к записи снимается под блокировкой очереди, чтобы не потерять
+    // кадр, добавленный в этот момент другим потоком
+    void onWritable() {
+        boolean drained;
+        try {
+            synchronized (outbound) {
+                drained = outbound.writeTo(channel);
+                if (drained && !closing) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка отправки: " + e.getMessage());
+            disconnect();
+            return;
+        }
+        if (drained && closing) {
+            disconnect();
+        }
+    }
+
+    @Override
+    protected void requestWrite() {
+        try {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            key.selector().wakeup();
+        } catch (CancelledKeyException e) {
+            // Соединение уже закрыто
+        }
+    }
+
+    @Override
+    protected void disconnectAfterSend() {
+        closing = true;
+        if (outbound.hasPending()) return;
+        disconnect();
+    }
+
+    @Override
+    protected void closeTransport() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка отключения клиента: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected boolean isTransportOpen() {
+        return channel.isOpen();
+    }
+}
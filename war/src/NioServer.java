@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Сервер хоста на неблокирующих каналах: все соединения обслуживают
+// несколько потоков ввода-вывода, у каждого свой Selector. Первый поток
+// еще и принимает подключения и раздает их потокам по кругу. Поток на
+// каждого клиента не нужен, а память соединения ограничена его буферами
+// (см. NioConnection)
+public class NioServer {
+    private final ServerSocketChannel serverChannel;
+    private final IoLoop[] loops;
+    private final MultiplayerManager multiplayerManager;
+    private int nextLoop = 0;
+    private volatile boolean running = true;
+
+    public NioServer(int port, int ioThreads, MultiplayerManager multiplayerManager) throws IOException {
+        this.multiplayerManager = multiplayerManager;
+        this.loops = new IoLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new IoLoop(i);
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            for (IoLoop loop : loops) {
+                loop.selector.close();
+            }
+            throw e;
+        }
+    }
+
+    public void start() {
+        for (IoLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    // Останавливает потоки; они сами закрывают свои соединения
+    public void close() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка закрытия сервера: " + e.getMessage());
+        }
+        for (IoLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+    }
+
+    // Новое подключение (первый поток) отдается следующему потоку по кругу
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            IoLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.pending.add(channel);
+            loop.selector.wakeup();
+        }
+    }
+
+    private class IoLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        // Принятые каналы, которые этот поток еще не зарегистрировал
+        final ConcurrentLinkedQueue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+
+        IoLoop(int index) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, "game-net-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerPending();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) continue;
+
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    System.out.println("❌ Ошибка сетевого потока: " + e.getMessage());
+                }
+            } finally {
+                shutdown();
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                NioConnection connection = new NioConnection(channel, multiplayerManager);
+                try {
+                    connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+                } catch (ClosedChannelException e) {
+                    continue;
+                }
+                multiplayerManager.getNetworkManager().onClientConnected(connection);
+                connection.onOpen();
+            }
+        }
+
+        private void shutdown() {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection) {
+                    ((NioConnection) key.attachment()).disconnect();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.out.println("❌ Ошибка закрытия сетевого потока: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+// Сравнение реализаций шума биомов: прежняя скалярная (статическая таблица,
+// ветвистый grad, Math.floor на каждый вызов), новое скалярное ядро и векторное.
+// Запуск: java --add-modules jdk.incubator.vector -cp build NoiseBenchmark
+public class NoiseBenchmark {
+    private static final int WIDTH = 1024;
+    private static final int ROWS = 256;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    
+    public static void main(String[] args) {
+        int[] permutation = new int[512];
+        System.arraycopy(p, 0, permutation, 0, 512);
+        double[] row = new double[WIDTH];
+        
+        double legacy = measure("Прежняя реализация", () -> {
+            double sum = 0;
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    double value = 0;
+                    value += perlinNoise(x * 0.01, y * 0.01) * 0.5;
+                    value += perlinNoise(x * 0.02, y * 0.02) * 0.25;
+                    value += perlinNoise(x * 0.04, y * 0.04) * 0.125;
+                    value += perlinNoise(x * 0.08, y * 0.08) * 0.0625;
+                    sum += value;
+                }
+            }
+            return sum;
+        });
+        double scalar = measure("Скалярное ядро", () -> sumRows(NoiseField.getScalarKernel(), permutation, row));
+        System.out.printf("   ускорение: %.2fx%n", legacy / scalar);
+        
+        if (NoiseField.isVectorized()) {
+            double vector = measure("Векторное ядро", () -> sumRows(NoiseField.getKernel(), permutation, row));
+            System.out.printf("   ускорение: %.2fx%n", legacy / vector);
+        } else {
+            System.out.println("Векторное ядро недоступно (нужен --add-modules jdk.incubator.vector)");
+        }
+    }
+    
+    private static double sumRows(NoiseKernel kernel, int[] permutation, double[] row) {
+        double sum = 0;
+        for (int y = 0; y < ROWS; y++) {
+            kernel.fbmRow(permutation, 0, y, WIDTH, row);
+            for (double value : row) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+    
+    // Возвращает среднее время на тайл в наносекундах
+    private static double measure(String name, java.util.function.DoubleSupplier work) {
+        double checksum = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            checksum += work.getAsDouble();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            checksum += work.getAsDouble();
+        }
+        double nanosPerTile = (double) (System.nanoTime() - startTime) / MEASURED_ROUNDS / (WIDTH * ROWS);
+        System.out.printf("⏱ %-20s %6.2f нс/тайл (контрольная сумма %.6f)%n", name, nanosPerTile, checksum);
+        return nanosPerTile;
+    }
+    
+    // ============ ПРЕЖНЯЯ РЕАЛИЗАЦИЯ ============
+    
+    private static double perlinNoise(double x, double y) {
+        int X = (int)Math.floor(x) & 255;
+        int Y = (int)Math.floor(y) & 255;
+
+        x -= Math.floor(x);
+        y -= Math.floor(y);
+
+        double u = fade(x);
+        double v = fade(y);
+
+        int A = p[X] + Y;
+        int B = p[X + 1] + Y;
+
+        return lerp(v, lerp(u, grad(p[A], x, y), grad(p[B], x - 1, y)),
+                      lerp(u, grad(p[A + 1], x, y - 1), grad(p[B + 1], x - 1, y - 1)));
+    }
+
+    private static double fade(double t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+
+    private static double lerp(double t, double a, double b) {
+        return a + t * (b - a);
+    }
+
+    private static double grad(int hash, double x, double y) {
+        int h = hash & 7;
+        double u = h < 4 ? x : y;
+        double v = h < 4 ? y : x;
+        return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+    }
+
+    private static final int[] p = new int[512];
+    static {
+        int[] permutation = {
+            151,160,137,91,90,15,131,13,201,95,96,53,194,233,7,225,140,36,103,30,69,142,
+            8,99,37,240,21,10,23,190,6,148,247,120,234,75,0,26,197,62,94,252,219,203,117,
+            35,11,32,57,177,33,88,237,149,56,87,174,20,125,136,171,168,68,175,74,165,71,
+            134,139,48,27,166,77,146,158,231,83,111,229,122,60,211,133,230,220,105,92,41,
+            55,46,245,40,244,102,143,54,65,25,63,161,1,216,80,73,209,76,132,187,208,89,
+            18,169,200,196,135,130,116,188,159,86,164,100,109,198,173,186,3,64,52,217,226,
+            250,124,123,5,202,38,147,118,126,255,82,85,212,207,206,59,227,47,16,58,17,182,
+            189,28,42,223,183,170,213,119,248,152,2,44,154,163,70,221,153,101,155,167,43,
+            172,9,129,22,39,253,19,98,108,110,79,113,224,232,178,185,112,104,218,246,97,
+            228,251,34,242,193,238,210,144,12,191,191,179,162,241,81,51,145,235,249,14,239,
+            107,49,192,214,31,181,199,106,157,184,84,204,176,115,121,50,45,127,4,150,254,
+            138,236,205,93,222,114,67,29,24,72,243,141,128,195,78,66,215,61,156,180
+        };
+
+        for (int i = 0; i < 256; i++) {
+            p[256 + i] = p[i] = permutation[i];
+        }
+    }
+}
@@ -0,0 +1,189 @@
+// Многооктавный шум Перлина для биомов.
+// Таблица перестановок строится из сида мира, строки тайлов считаются целиком:
+// векторным ядром (jdk.incubator.vector), если оно собрано и доступно, иначе скалярно
+public class NoiseField {
+    // Октавы: частота и вес
+    public static final double[] FREQUENCIES = {0.01, 0.02, 0.04, 0.08};
+    public static final double[] AMPLITUDES = {0.5, 0.25, 0.125, 0.0625};
+    
+    private static final NoiseKernel SCALAR_KERNEL = NoiseField::scalarFbmRow;
+    private static final NoiseKernel KERNEL = loadKernel();
+    
+    private final int[] permutation = new int[512];
+    
+    public NoiseField(long seed) {
+        int[] values = new int[256];
+        for (int i = 0; i < 256; i++) {
+            values[i] = i;
+        }
+        // Перемешивание Фишера-Йетса детерминированным генератором
+        HashRandom random = new HashRandom(HashRandom.hash(seed, 0, 0, HashRandom.SALT_NOISE));
+        for (int i = 255; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+        for (int i = 0; i < 256; i++) {
+            permutation[256 + i] = permutation[i] = values[i];
+        }
+    }
+    
+    // Заполняет out[0..length) значениями шума для тайлов (baseX + i, y)
+    public void fbmRow(int baseX, int y, int length, double[] out) {
+        KERNEL.fbmRow(permutation, baseX, y, length, out);
+    }
+    
+    public double fbm(int x, int y) {
+        double[] out = new double[1];
+        SCALAR_KERNEL.fbmRow(permutation, x, y, 1, out);
+        return out[0];
+    }
+    
+    public static boolean isVectorized() {
+        return KERNEL != SCALAR_KERNEL;
+    }
+    
+    static NoiseKernel getScalarKernel() {
+        return SCALAR_KERNEL;
+    }
+    
+    static NoiseKernel getKernel() {
+        return KERNEL;
+    }
+    
+    // ============ СКАЛЯРНОЕ ЯДРО ============
+    
+    // Вдоль строки y постоянен, поэтому все, что зависит от y, считается один раз
+    // на октаву. Строка режется на отрезки по клеткам шума (на частоте 0.01 клетка -
+    // 100 тайлов), и все, что зависит от клетки, считается один раз на отрезок:
+    // хеши углов, знаки градиентов и слагаемые от y. Градиент в углу - это
+    // (±x) + (±y) (см. gradX), смена знака и сложение точные, поэтому результат
+    // побитово совпадает с прямым вычислением через floor и grad на каждый тайл.
+    // Внутри отрезка нет ни floor, ни ветвлений, ни обращений к таблице, а
+    // координата тайла ведется в double, без преобразования int -> double
+    static void scalarFbmRow(int[] p, int baseX, int y, int length, double[] out) {
+        for (int i = 0; i < length; i++) {
+            out[i] = 0;
+        }
+        for (int octave = 0; octave < FREQUENCIES.length; octave++) {
+            double frequency = FREQUENCIES[octave];
+            double amplitude = AMPLITUDES[octave];
+            
+            double fy = y * frequency;
+            double floorY = Math.floor(fy);
+            int cellY = (int) floorY & 255;
+            double yf = fy - floorY;
+            double yf1 = yf - 1;
+            double v = fade(yf);
+            
+            int i = 0;
+            while (i < length) {
+                double floorX = Math.floor((baseX + i) * frequency);
+                double nextCellX = floorX + 1;
+                int end = cellEnd(baseX, i, length, frequency, nextCellX);
+                
+                int cellX = (int) floorX & 255;
+                int a = p[cellX] + cellY;
+                int b = p[cellX + 1] + cellY;
+                double gxA = gradX(p[a]);
+                double gxB = gradX(p[b]);
+                double gxA1 = gradX(p[a + 1]);
+                double gxB1 = gradX(p[b + 1]);
+                double yA = gradY(p[a]) * yf;
+                double yB = gradY(p[b]) * yf;
+                double yA1 = gradY(p[a + 1]) * yf1;
+                double yB1 = gradY(p[b + 1]) * yf1;
+                
+                double tileX = baseX + i;
+                for (; i < end; i++, tileX++) {
+                    double xf = tileX * frequency - floorX;
+                    double xf1 = xf - 1;
+                    double u = fade(xf);
+                    
+                    double x1 = lerp(u, gxA * xf + yA, gxB * xf1 + yB);
+                    double x2 = lerp(u, gxA1 * xf + yA1, gxB1 * xf1 + yB1);
+                    out[i] += lerp(v, x1, x2) * amplitude;
+                }
+            }
+        }
+    }
+    
+    // Первый тайл после from, у которого x * frequency уже в следующей клетке
+    // (или length). Оценка делением уточняется теми же умножениями, что и в
+    // основном цикле, чтобы граница совпадала с floor точно
+    private static int cellEnd(int baseX, int from, int length, double frequency, double nextCellX) {
+        int end = (int) Math.min(length, Math.max(from + 1, Math.ceil(nextCellX / frequency) - baseX - 1));
+        while (end < length && (baseX + end) * frequency < nextCellX) {
+            end++;
+        }
+        while (end > from + 1 && (baseX + end - 1) * frequency >= nextCellX) {
+            end--;
+        }
+        return end;
+    }
+    
+    static double fade(double t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+    
+    static double lerp(double t, double a, double b) {
+        return a + t * (b - a);
+    }
+    
+    // Градиент Перлина для хеша h - это (±x) + (±y) (для h >= 4 слагаемые в
+    // обратном порядке, что для сложения не важно). Множители при x и y для
+    // 8 значений хеша (+1 или -1)
+    static double gradX(int hash) {
+        int h = hash & 7;
+        return ((h < 4 ? h : h >> 1) & 1) == 0 ? 1.0 : -1.0;
+    }
+    
+    static double gradY(int hash) {
+        int h = hash & 7;
+        return ((h < 4 ? h >> 1 : h) & 1) == 0 ? 1.0 : -1.0;
+    }
+    
+    // ============ ЗАГРУЗКА ВЕКТОРНОГО ЯДРА ============
+    
+    // Векторное ядро собирается отдельно (src/vector) и требует модуля
+    // jdk.incubator.vector; если его нет - остаемся на скалярном пути
+    private static NoiseKernel loadKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("noise.vector", "true"))) {
+            System.out.println("🧮 Шум: скалярное ядро (векторное отключено)");
+            return SCALAR_KERNEL;
+        }
+        try {
+            NoiseKernel kernel = (NoiseKernel) Class.forName("VectorNoiseKernel")
+                .getDeclaredConstructor().newInstance();
+            if (!matchesScalar(kernel)) {
+                System.out.println("⚠️ Шум: векторное ядро расходится со скалярным, используем скалярное");
+                return SCALAR_KERNEL;
+            }
+            System.out.println("🧮 Шум: векторное ядро " + kernel);
+            return kernel;
+        } catch (ClassNotFoundException | LinkageError e) {
+            System.out.println("🧮 Шум: скалярное ядро (векторное недоступно)");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.out.println("⚠️ Шум: не удалось загрузить векторное ядро: " + e.getMessage());
+        }
+        return SCALAR_KERNEL;
+    }
+    
+    private static boolean matchesScalar(NoiseKernel kernel) {
+        int[] p = new NoiseField(12345).permutation;
+        int length = 53;
+        double[] expected = new double[length];
+        double[] actual = new double[length];
+        for (int y = 0; y < 300; y += 37) {
+            scalarFbmRow(p, y * 7, y, length, expected);
+            kernel.fbmRow(p, y * 7, y, length, actual);
+            for (int i = 0; i < length; i++) {
+                if (Double.doubleToLongBits(expected[i]) != Double.doubleToLongBits(actual[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,5 @@
+// Вычисление строки многооктавного шума (fBm). Реализации обязаны давать
+// побитово одинаковый результат, иначе миры на разных машинах разойдутся
+public interface NoiseKernel {
+    void fbmRow(int[] permutation, int baseX, int y, int length, double[] out);
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+// Исходящие кадры одного соединения. Игровой шаг ничего не пишет в сокет:
+// его кадры копятся здесь и при flush уходят одной записью, а пишет их
+// поток соединения. Три вида кадров:
+//   - add: сразу в отправку (рукопожатие, ответы, загрузка мира);
+//   - stage: вместе с остальными кадрами шага при flush;
+//   - stageLatest: состояние по ключу (например, позиция игрока) - до flush
+//     доживает только последний кадр с этим ключом.
+//
+// Если клиент не успевает принимать:
+//   - больше DEGRADE_THRESHOLD неотправленных байтов - состояние уходит лишь
+//     на каждом DEGRADED_STATE_INTERVAL-м flush (остальные кадры не теряются),
+//     пока очередь не опустеет вдвое;
+//   - больше MAX_PENDING_OUTBOUND - переполнение, соединение закрывается
+public class OutboundQueue {
+    public static final int DEGRADE_THRESHOLD = NetworkProtocol.MAX_PENDING_OUTBOUND / 4;
+    public static final int DEGRADED_STATE_INTERVAL = 4;
+    private static final int INITIAL_CAPACITY = 4096;
+
+    // Готовое к записи (режим записи: position - сколько накоплено)
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_CAPACITY);
+    // Кадры текущего шага
+    private ByteBuffer staged = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    // Последние кадры состояния по ключам; ключей обычно единицы-десятки
+    private long[] stateKeys = new long[8];
+    private byte[][] stateFrames = new byte[8][64];
+    private int[] stateLengths = new int[8];
+    private int stateCount = 0;
+    private int stateBytes = 0;
+
+    private boolean degraded = false;
+    private int flushCount = 0;
+    private boolean closed = false;
+
+    // Ключ состояния: вид кадра и чей он
+    public static long key(int opcode, int id) {
+        return ((long) opcode << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // false - переполнение
+    public synchronized boolean add(PacketWriter frame) {
+        if (!fits(frame.frameLength())) return false;
+        pending = append(pending, frame);
+        return true;
+    }
+
+    public synchronized boolean stage(PacketWriter frame) {
+        if (!fits(frame.frameLength())) return false;
+        staged = append(staged, frame);
+        return true;
+    }
+
+    public synchronized boolean stageLatest(long key, PacketWriter frame) {
+        int length = frame.frameLength();
+        int index = 0;
+        while (index < stateCount && stateKeys[index] != key) index++;
+        int previous = index < stateCount ? stateLengths[index] : 0;
+        if (!fits(length - previous)) return false;
+
+        if (index == stateCount) {
+            if (stateCount == stateKeys.length) {
+                stateKeys = Arrays.copyOf(stateKeys, stateCount * 2);
+                stateFrames = Arrays.copyOf(stateFrames, stateCount * 2);
+                stateLengths = Arrays.copyOf(stateLengths, stateCount * 2);
+            }
+            stateKeys[index] = key;
+            if (stateFrames[index] == null) stateFrames[index] = new byte[64];
+            stateCount++;
+        }
+        if (stateFrames[index].length < length) {
+            stateFrames[index] = new byte[Math.max(length, stateFrames[index].length * 2)];
+        }
+        ByteBuffer target = ByteBuffer.wrap(stateFrames[index]);
+        frame.writeTo(target);
+        stateLengths[index] = length;
+        stateBytes += length - previous;
+        return true;
+    }
+
+    // Конец шага: кадры шага, затем состояние, переходят в отправку одним куском
+    public synchronized void flush() {
+        flushCount++;
+        int bytes = pending.position() + staged.position();
+        if (degraded && bytes < DEGRADE_THRESHOLD / 2) {
+            degraded = false;
+            System.out.println("📶 Клиент догнал очередь отправки");
+        } else if (!degraded && bytes > DEGRADE_THRESHOLD) {
+            degraded = true;
+            System.out.println("🐢 Клиент не успевает принимать - состояние реже");
+        }
+
+        if (staged.position() > 0) {
+            staged.flip();
+            pending = ensure(pending, staged.remaining());
+            pending.put(staged);
+            staged.clear();
+        }
+        if (stateCount > 0 && (!degraded || flushCount % DEGRADED_STATE_INTERVAL == 0)) {
+            pending = ensure(pending, stateBytes);
+            for (int i = 0; i < stateCount; i++) {
+                pending.put(stateFrames[i], 0, stateLengths[i]);
+            }
+            stateCount = 0;
+            stateBytes = 0;
+        }
+    }
+
+    public synchronized boolean hasPending() {
+        return pending.position() > 0;
+    }
+
+    // Неблокирующая запись: сколько канал примет. true - все отправлено
+    public synchronized boolean writeTo(WritableByteChannel channel) throws IOException {
+        pending.flip();
+        channel.write(pending);
+        pending.compact();
+        if (pending.position() == 0 && pending.capacity() > INITIAL_CAPACITY * 16) {
+            pending = ByteBuffer.allocate(INITIAL_CAPACITY);
+        }
+        return pending.position() == 0;
+    }
+
+    // Для блокирующей записи: ждет данных и отдает их целиком, взамен
+    // забирает пустой буфер spare. null - очередь закрыта
+    public synchronized ByteBuffer takePending(ByteBuffer spare) throws InterruptedException {
+        while (pending.position() == 0 && !closed) {
+            wait();
+        }
+        if (closed) return null;
+        ByteBuffer taken = pending;
+        spare.clear();
+        pending = spare;
+        taken.flip();
+        return taken;
+    }
+
+    // Будит ждущего в takePending
+    public synchronized void signal() {
+        notifyAll();
+    }
+
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    private boolean fits(int extra) {
+        return pending.position() + staged.position() + stateBytes + extra <= NetworkProtocol.MAX_PENDING_OUTBOUND;
+    }
+
+    private static ByteBuffer append(ByteBuffer buffer, PacketWriter frame) {
+        buffer = ensure(buffer, frame.frameLength());
+        frame.writeTo(buffer);
+        return buffer;
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int extra) {
+        if (buffer.remaining() >= extra) return buffer;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
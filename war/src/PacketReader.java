@@ -0,0 +1,148 @@
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Разбор кадров протокола (см. NetworkProtocol). Кадр целиком читается в
+// переиспользуемый буфер, поля читаются по порядку; выход за конец кадра
+// или слишком длинный кадр - ProtocolException
+public class PacketReader {
+    private byte[] data = new byte[256];
+    private int position;
+    private int limit;
+    private int opcode;
+
+    // Следующий кадр из потока; false - поток закрыт между кадрами
+    public boolean readFrame(InputStream in) throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) return false;
+                throw new EOFException("Поток закрыт посреди длины кадра");
+            }
+            if (shift > 28) throw new ProtocolException("Слишком длинная длина кадра");
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        if (length < 1 || length > NetworkProtocol.MAX_FRAME_LENGTH) {
+            throw new ProtocolException("Недопустимая длина кадра: " + length);
+        }
+        if (length > data.length) {
+            data = new byte[Math.max(length, data.length * 2)];
+        }
+
+        int read = 0;
+        while (read < length) {
+            int n = in.read(data, read, length - read);
+            if (n < 0) throw new EOFException("Поток закрыт посреди кадра");
+            read += n;
+        }
+        position = 0;
+        limit = length;
+        opcode = readByte();
+        return true;
+    }
+
+    // Следующий кадр из накопленных байтов (буфер в режиме чтения). Если кадр
+    // пришел не целиком, буфер не трогается и возвращается false
+    public boolean readFrame(ByteBuffer buffer, int maxLength) throws ProtocolException {
+        int start = buffer.position();
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                buffer.position(start);
+                return false;
+            }
+            if (shift > 28) throw new ProtocolException("Слишком длинная длина кадра");
+            int b = buffer.get() & 0xFF;
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        if (length < 1 || length > maxLength) {
+            throw new ProtocolException("Недопустимая длина кадра: " + length);
+        }
+        if (buffer.remaining() < length) {
+            buffer.position(start);
+            return false;
+        }
+        if (length > data.length) {
+            data = new byte[Math.max(length, data.length * 2)];
+        }
+
+        buffer.get(data, 0, length);
+        position = 0;
+        limit = length;
+        opcode = readByte();
+        return true;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    public int readByte() throws ProtocolException {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    public int readVarInt() throws ProtocolException {
+        int value = 0;
+        for (int shift = 0; shift <= 28; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new ProtocolException("Слишком длинный varint");
+    }
+
+    public int readSignedVarInt() throws ProtocolException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readInt() throws ProtocolException {
+        require(4);
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public long readLong() throws ProtocolException {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public double readPosition() throws ProtocolException {
+        return NetworkProtocol.dequantize(readSignedVarInt());
+    }
+
+    public String readString() throws ProtocolException {
+        int length = readVarInt();
+        require(length);
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    // Остаток кадра как есть (части сохранения мира)
+    public void readRemainingTo(ByteArrayOutputStream out) {
+        out.write(data, position, limit - position);
+        position = limit;
+    }
+
+    private void require(int count) throws ProtocolException {
+        if (count < 0 || position + count > limit) {
+            throw new ProtocolException("Кадр " + opcode + " короче, чем ожидалось");
+        }
+    }
+}
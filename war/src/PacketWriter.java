@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Сборка одного кадра протокола (см. NetworkProtocol): begin(опкод), затем
+// поля. Длина кадра известна только в конце, поэтому перед данными
+// оставлено место под нее, и writeTo дописывает ее туда. Буфер
+// переиспользуется от кадра к кадру
+public class PacketWriter {
+    private static final int HEADER = 5; // Максимальная длина varint для int
+
+    private byte[] data = new byte[256];
+    private int position = HEADER;
+
+    public PacketWriter begin(int opcode) {
+        position = HEADER;
+        return writeByte(opcode);
+    }
+
+    public PacketWriter writeByte(int value) {
+        ensure(1);
+        data[position++] = (byte) value;
+        return this;
+    }
+
+    // Число без знака: по 7 бит, старший бит - "дальше есть еще"
+    public PacketWriter writeVarInt(int value) {
+        ensure(HEADER);
+        while ((value & ~0x7F) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return this;
+    }
+
+    // Число со знаком: zigzag, чтобы малые отрицательные были короткими
+    public PacketWriter writeSignedVarInt(int value) {
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public PacketWriter writeLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            data[position++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    public PacketWriter writeInt(int value) {
+        ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            data[position++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    public PacketWriter writePosition(double coordinate) {
+        return writeSignedVarInt(NetworkProtocol.quantize(coordinate));
+    }
+
+    public PacketWriter writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    public PacketWriter writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, data, position, length);
+        position += length;
+        return this;
+    }
+
+    // Отправляет собранный кадр; один кадр можно отправить нескольким получателям
+    public void writeTo(OutputStream out) throws IOException {
+        int start = finish();
+        out.write(data, start, position - start);
+    }
+
+    // То же в буфер отправки; места в нем должно быть не меньше frameLength()
+    public void writeTo(ByteBuffer buffer) {
+        int start = finish();
+        buffer.put(data, start, position - start);
+    }
+
+    // Размер кадра вместе с длиной
+    public int frameLength() {
+        return position - finish();
+    }
+
+    // Дописывает длину перед данными; возвращает начало кадра
+    private int finish() {
+        int length = position - HEADER;
+        int size = 1;
+        while ((length >>> (7 * size)) != 0) size++;
+        int start = HEADER - size;
+        int at = start;
+        while ((length & ~0x7F) != 0) {
+            data[at++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        data[at] = (byte) length;
+        return start;
+    }
+
+    private void ensure(int extra) {
+        if (position + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, position + extra));
+        }
+    }
+}
@@ -1,13 +1,18 @@
 public class Player {
     private double x;
     private double y;
+    // Позиция на предыдущем шаге игрового цикла (для интерполяции кадров)
+    private double previousX;
+    private double previousY;
     private int health;
     private int hunger;
     private int experience;
     private int level;
     private int direction;
     
-    private int moveCooldown = 0;
+    // Шаги игрового цикла и шаг, с которого снова можно идти
+    private long tick = 0;
+    private long nextMoveTick = 0;
     private static final int MOVE_DELAY = 15;
     private static final int RUN_MOVE_DELAY = 8;
     private boolean isRunning = false;
@@ -15,6 +20,8 @@ public class Player {
     public Player(int startX, int startY) {
         this.x = startX;
         this.y = startY;
+        this.previousX = startX;
+        this.previousY = startY;
         this.health = 100;
         this.hunger = GameConstants.MAX_HUNGER;
         this.experience = GameConstants.STARTING_XP;
@@ -42,6 +49,16 @@ public class Player {
     public double getExactX() { return x; }
     public double getExactY() { return y; }
     
+    // Координаты для кадра между шагами: alpha = 0 - прошлый шаг, 1 - текущий
+    public double getRenderX(double alpha) { return previousX + (x - previousX) * alpha; }
+    public double getRenderY(double alpha) { return previousY + (y - previousY) * alpha; }
+    
+    // Запоминает позицию в начале шага игрового цикла
+    public void storePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
+    
     public int getHealth() { return health; }
     public int getHunger() { return hunger; }
     public int getExperience() { return experience; }
@@ -49,7 +66,7 @@ public class Player {
     public int getDirection() { return direction; }
     
     public boolean canMove() {
-        return moveCooldown <= 0;
+        return tick >= nextMoveTick;
     }
     
     // Обновленный метод для движения с дробными шагами
@@ -60,13 +77,13 @@ public class Player {
         this.isRunning = running;
         
         if (running) {
-            this.moveCooldown = RUN_MOVE_DELAY;
+            this.nextMoveTick = tick + RUN_MOVE_DELAY;
             // При беге тратим в 2 раза больше голода
             if (Math.random() < 0.3) { // 30% шанс потратить голод при беге
                 decreaseHunger(2);
             }
         } else {
-            this.moveCooldown = MOVE_DELAY;
+            this.nextMoveTick = tick + MOVE_DELAY;
             // При обычной ходьбе тратим обычное количество голода
             if (Math.random() < 0.15) { // 15% шанс потратить голод при ходьбе
                 decreaseHunger(1);
@@ -157,10 +174,7 @@ public int getAttackTargetY(double targetY) {
 }
     // Обновление состояния (вызывается каждый кадр)
     public void update() {
-        // Уменьшаем задержку движения
-        if (moveCooldown > 0) {
-            moveCooldown--;
-        }
+        tick++;
         
         // Голод уменьшается со временем (реже)
         if (Math.random() < 0.003) {
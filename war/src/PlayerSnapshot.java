@@ -0,0 +1,182 @@
+import java.net.ProtocolException;
+import java.util.Arrays;
+
+// Состояние игроков на один шаг: id, позиция в фиксированной точке
+// (NetworkProtocol.quantize) и направление, упорядочено по id. Хост шлет
+// клиенту не снимок целиком, а разницу с тем, что клиент уже подтвердил:
+//   число записей, затем для каждого изменившегося игрока
+//   id | маска полей | поля из маски
+// Координаты - разность с базовым снимком (zigzag varint), направление -
+// байт. Новый игрок пишется всеми полями относительно нуля, ушедший -
+// одной маской REMOVED; игроки без изменений не пишутся вовсе
+public class PlayerSnapshot {
+    public static final int FIELD_X = 1;
+    public static final int FIELD_Y = 2;
+    public static final int FIELD_DIRECTION = 4;
+    public static final int REMOVED = 8;
+    private static final int ALL_FIELDS = FIELD_X | FIELD_Y | FIELD_DIRECTION;
+
+    private int count = 0;
+    private int[] ids = new int[8];
+    private int[] xs = new int[8];
+    private int[] ys = new int[8];
+    private int[] directions = new int[8];
+
+    public void clear() {
+        count = 0;
+    }
+
+    // Добавляет игрока, сохраняя порядок по id (игроков единицы-десятки)
+    public void add(int id, int x, int y, int direction) {
+        if (count == ids.length) {
+            int capacity = count * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            directions = Arrays.copyOf(directions, capacity);
+        }
+        int at = count;
+        while (at > 0 && ids[at - 1] > id) {
+            ids[at] = ids[at - 1];
+            xs[at] = xs[at - 1];
+            ys[at] = ys[at - 1];
+            directions[at] = directions[at - 1];
+            at--;
+        }
+        ids[at] = id;
+        xs[at] = x;
+        ys[at] = y;
+        directions[at] = direction;
+        count++;
+    }
+
+    public void copyFrom(PlayerSnapshot other) {
+        clear();
+        for (int i = 0; i < other.count; i++) {
+            add(other.ids[i], other.xs[i], other.ys[i], other.directions[i]);
+        }
+    }
+
+    public void remove(int id) {
+        int index = indexOf(id);
+        if (index >= 0) removeAt(index);
+    }
+
+    public boolean sameAs(PlayerSnapshot other) {
+        if (count != other.count) return false;
+        for (int i = 0; i < count; i++) {
+            if (ids[i] != other.ids[i] || xs[i] != other.xs[i] ||
+                ys[i] != other.ys[i] || directions[i] != other.directions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int indexOf(int id) {
+        return Arrays.binarySearch(ids, 0, count, id);
+    }
+
+    public int getId(int index) { return ids[index]; }
+    public int getX(int index) { return xs[index]; }
+    public int getY(int index) { return ys[index]; }
+    public int getDirection(int index) { return directions[index]; }
+
+    // ============ РАЗНИЦА СНИМКОВ ============
+
+    // Пишет разницу current относительно baseline
+    public static void writeDelta(PlayerSnapshot baseline, PlayerSnapshot current, PacketWriter out) {
+        out.writeVarInt(countChanges(baseline, current));
+        int b = 0;
+        int c = 0;
+        while (b < baseline.count || c < current.count) {
+            int baseId = b < baseline.count ? baseline.ids[b] : Integer.MAX_VALUE;
+            int currentId = c < current.count ? current.ids[c] : Integer.MAX_VALUE;
+            if (baseId < currentId) {
+                out.writeVarInt(baseId).writeByte(REMOVED);
+                b++;
+            } else if (currentId < baseId) {
+                writeFields(out, currentId, ALL_FIELDS, current.xs[c], current.ys[c], current.directions[c]);
+                c++;
+            } else {
+                int dx = current.xs[c] - baseline.xs[b];
+                int dy = current.ys[c] - baseline.ys[b];
+                int mask = (dx != 0 ? FIELD_X : 0) | (dy != 0 ? FIELD_Y : 0) |
+                    (current.directions[c] != baseline.directions[b] ? FIELD_DIRECTION : 0);
+                if (mask != 0) {
+                    writeFields(out, currentId, mask, dx, dy, current.directions[c]);
+                }
+                b++;
+                c++;
+            }
+        }
+    }
+
+    // Собирает в target снимок baseline с примененной разницей
+    public static void readDelta(PlayerSnapshot baseline, PacketReader in, PlayerSnapshot target)
+            throws ProtocolException {
+        target.copyFrom(baseline);
+        int changes = in.readVarInt();
+        for (int i = 0; i < changes; i++) {
+            int id = in.readVarInt();
+            int mask = in.readByte();
+            int index = target.indexOf(id);
+            if ((mask & REMOVED) != 0) {
+                if (index >= 0) target.removeAt(index);
+                continue;
+            }
+            if (index < 0) {
+                if (mask != ALL_FIELDS) {
+                    throw new ProtocolException("Новый игрок " + id + " без всех полей");
+                }
+                target.add(id, 0, 0, 0);
+                index = target.indexOf(id);
+            }
+            if ((mask & FIELD_X) != 0) target.xs[index] += in.readSignedVarInt();
+            if ((mask & FIELD_Y) != 0) target.ys[index] += in.readSignedVarInt();
+            if ((mask & FIELD_DIRECTION) != 0) target.directions[index] = in.readByte();
+        }
+    }
+
+    private static int countChanges(PlayerSnapshot baseline, PlayerSnapshot current) {
+        int changes = 0;
+        int b = 0;
+        int c = 0;
+        while (b < baseline.count || c < current.count) {
+            int baseId = b < baseline.count ? baseline.ids[b] : Integer.MAX_VALUE;
+            int currentId = c < current.count ? current.ids[c] : Integer.MAX_VALUE;
+            if (baseId != currentId) {
+                changes++;
+                if (baseId < currentId) b++; else c++;
+            } else {
+                if (current.xs[c] != baseline.xs[b] || current.ys[c] != baseline.ys[b] ||
+                    current.directions[c] != baseline.directions[b]) {
+                    changes++;
+                }
+                b++;
+                c++;
+            }
+        }
+        return changes;
+    }
+
+    private static void writeFields(PacketWriter out, int id, int mask, int x, int y, int direction) {
+        out.writeVarInt(id).writeByte(mask);
+        if ((mask & FIELD_X) != 0) out.writeSignedVarInt(x);
+        if ((mask & FIELD_Y) != 0) out.writeSignedVarInt(y);
+        if ((mask & FIELD_DIRECTION) != 0) out.writeByte(direction);
+    }
+
+    private void removeAt(int index) {
+        int tail = count - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(xs, index + 1, xs, index, tail);
+        System.arraycopy(ys, index + 1, ys, index, tail);
+        System.arraycopy(directions, index + 1, directions, index, tail);
+        count--;
+    }
+}
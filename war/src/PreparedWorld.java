@@ -0,0 +1,81 @@
+import java.awt.Point;
+
+// Мир, подготовленный заранее (во время загрузки игры): чанки вокруг
+// точки появления уже сгенерированы, постройки расставлены.
+// GamePanel забирает его целиком вместо генерации в конструкторе
+public class PreparedWorld {
+    // Сколько случайных точек пробуем, прежде чем взять центр карты
+    private static final int SPAWN_ATTEMPTS = 64;
+
+    private final long seed;
+    private final ChunkedWorld world;
+    private final StructureGenerator structureGenerator;
+    private final int spawnX;
+    private final int spawnY;
+
+    private PreparedWorld(long seed, ChunkedWorld world, StructureGenerator structureGenerator, int spawnX, int spawnY) {
+        this.seed = seed;
+        this.world = world;
+        this.structureGenerator = structureGenerator;
+        this.spawnX = spawnX;
+        this.spawnY = spawnY;
+    }
+
+    // Создает мир, выбирает точку появления и генерирует ее окрестности
+    public static PreparedWorld prepare(long seed) {
+        ChunkedWorld world = new ChunkedWorld(seed);
+        System.out.println("✅ Мир создан: " + world.getWidth() + "x" + world.getHeight() +
+                         " (чанки " + GameConstants.CHUNK_SIZE + "x" + GameConstants.CHUNK_SIZE +
+                         " генерируются по требованию)");
+
+        Point spawn = findSpawn(world, seed);
+
+        // Окрестности игрока генерируем сразу, остальное - в фоне
+        world.generateArea(spawn.x, spawn.y, GameConstants.CHUNK_LOAD_RADIUS);
+
+        // Дом рядом с игроком и постройки по миру
+        StructureGenerator structureGenerator = new StructureGenerator();
+        structureGenerator.generateStructures(world, seed, spawn.x, spawn.y);
+
+        return new PreparedWorld(seed, world, structureGenerator, spawn.x, spawn.y);
+    }
+
+    // Точка появления зависит только от сида; если за SPAWN_ATTEMPTS
+    // попыток подходящей нет (мир из воды и леса), игрок появится в центре
+    private static Point findSpawn(ChunkedWorld world, long seed) {
+        TerrainIndex terrainIndex = world.getTerrainIndex();
+        HashRandom random = new HashRandom(HashRandom.hash(seed, 0, 0, HashRandom.SALT_SPAWN));
+        for (int attempt = 0; attempt < SPAWN_ATTEMPTS; attempt++) {
+            int startX = (int)(random.nextDouble() * (world.getWidth() - 50)) + 25;
+            int startY = (int)(random.nextDouble() * (world.getHeight() - 50)) + 25;
+            // Индекс местности видит только сгенерированные чанки
+            world.generateArea(startX, startY, GameConstants.SPAWN_SEARCH_RADIUS / WorldChunk.SIZE + 1);
+            Point spawn = terrainIndex.findNearest(TerrainIndex.CLASS_SPAWNABLE, startX, startY, 1, GameConstants.SPAWN_SEARCH_RADIUS);
+            if (spawn != null) {
+                return spawn;
+            }
+        }
+        System.out.println("⚠️ Место для появления не найдено, игрок в центре карты");
+        return new Point(world.getWidth() / 2, world.getHeight() / 2);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public ChunkedWorld getWorld() {
+        return world;
+    }
+
+    public StructureGenerator getStructureGenerator() {
+        return structureGenerator;
+    }
+
+    public int getSpawnX() {
+        return spawnX;
+    }
+
+    public int getSpawnY() {
+        return spawnY;
+    }
+}
@@ -9,10 +9,10 @@ public class RabbitSaveData implements Serializable {
     
     public RabbitSaveData() {}
     
-    public RabbitSaveData(Rabbit rabbit) {
-        this.x = rabbit.getX();
-        this.y = rabbit.getY();
-        this.health = rabbit.getHealth();
+    public RabbitSaveData(int x, int y, int health) {
+        this.x = x;
+        this.y = y;
+        this.health = health;
     }
     
     // Геттеры и сеттеры
@@ -0,0 +1,395 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Все кролики мира в плотных массивах примитивов (структура массивов):
+// позиция, позиция до последнего прыжка, шаг этого прыжка, здоровье и
+// состояние генератора случайных чисел. Живые кролики занимают ячейки
+// 0..size-1, удаление переносит последнего кролика на место удаленного.
+// Кролик просыпается раз в 20-39 шагов - когда именно, знает колесо
+// таймеров, так что шаг трогает только проснувшихся. Вдали от игроков
+// (SimulationRegions) кролик просыпается реже и прыгает с вероятностью
+// нескольких обычных пробуждений, а в замороженных чанках засыпает до
+// тех пор, пока чанк не оттает.
+//
+// Снаружи кролик адресуется устойчивым номером (handle), который не меняется
+// при переносах. Номера выдает сетка поиска, в которой кролики
+// зарегистрированы, поэтому номер сразу годится для запросов к ней
+public class RabbitStore {
+    public static final int INITIAL_HEALTH = 4;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double HOP_CHANCE = 0.2;
+    // Задержка до следующего пробуждения: MIN_DELAY..MIN_DELAY+DELAY_SPREAD-1 шагов
+    private static final int MIN_DELAY = 20;
+    private static final int DELAY_SPREAD = 20;
+    // Одно грубое пробуждение заменяет COARSE_WAKEUPS обычных
+    private static final int COARSE_WAKEUPS = 4;
+    // Колесо покрывает самую длинную грубую задержку (156 шагов, колесо
+    // округлит до 256): кролик всегда спит в корзине своего шага, и разбор
+    // корзины не перебирает записи следующих оборотов
+    private static final int WAKEUP_SLOTS = (MIN_DELAY + DELAY_SPREAD - 1) * COARSE_WAKEUPS + 1;
+    private static final double COARSE_HOP_CHANCE = 1 - Math.pow(1 - HOP_CHANCE, COARSE_WAKEUPS);
+    // С какого числа проснувшихся обновление идет в пуле и по сколько в задаче
+    private static final int PARALLEL_THRESHOLD = 1024;
+    private static final int TASK_SIZE = 512;
+
+    // Общий пул для параллельного обновления сущностей
+    static final ForkJoinPool SIMULATION_POOL = new ForkJoinPool(GameConstants.SIMULATION_PARALLELISM);
+
+    private int size = 0;
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private int[] previousXs = new int[64];
+    private int[] previousYs = new int[64];
+    private long[] moveTicks = new long[64];
+    private int[] healths = new int[64];
+    private long[] randomStates = new long[64];
+    private int[] handles = new int[64];
+
+    // Ячейка по номеру (-1 - номер свободен)
+    private int[] slotsByHandle = new int[64];
+    private long spawnCount = 0;
+
+    private final SpatialGrid<Void> grid;
+    private final TimerWheel wakeups = new TimerWheel(WAKEUP_SLOTS);
+    private final ForkJoinPool pool;
+    private final int chunksX;
+
+    // Буферы шага по индексу проснувшегося: ключ сортировки (чанк, номер),
+    // ячейка, позиция на следующем шаге, задержка до пробуждения (0 - уснул)
+    private long[] dueKeys = new long[64];
+    private int[] dueSlots = new int[64];
+    private int[] nextXs = new int[64];
+    private int[] nextYs = new int[64];
+    private int[] nextDelays = new int[64];
+
+    public RabbitStore(int width, int height, int cellSize) {
+        this(width, height, cellSize, SIMULATION_POOL);
+    }
+
+    public RabbitStore(int width, int height, int cellSize, ForkJoinPool pool) {
+        this.grid = new SpatialGrid<>(width, height, cellSize);
+        this.pool = pool;
+        this.chunksX = (width + GameConstants.CHUNK_SIZE - 1) / GameConstants.CHUNK_SIZE;
+        Arrays.fill(slotsByHandle, -1);
+    }
+
+    // ============ КРОЛИКИ ============
+
+    // Новый кролик; seed задает его случайные блуждания
+    public int add(int x, int y, int health, long seed) {
+        if (size == xs.length) {
+            grow();
+        }
+        int slot = size++;
+        xs[slot] = x;
+        ys[slot] = y;
+        previousXs[slot] = x;
+        previousYs[slot] = y;
+        moveTicks[slot] = Long.MIN_VALUE;
+        healths[slot] = health;
+        randomStates[slot] = HashRandom.mix(seed + (++spawnCount) * GOLDEN_GAMMA);
+
+        int handle = grid.add(null, x, y);
+        if (handle >= slotsByHandle.length) {
+            int oldLength = slotsByHandle.length;
+            slotsByHandle = Arrays.copyOf(slotsByHandle, Math.max(handle + 1, oldLength * 2));
+            Arrays.fill(slotsByHandle, oldLength, slotsByHandle.length, -1);
+        }
+        slotsByHandle[handle] = slot;
+        handles[slot] = handle;
+        // Новый кролик решает, куда прыгнуть, на ближайшем шаге
+        wakeups.scheduleAfter(handle, 1);
+        return handle;
+    }
+
+    public void remove(int handle) {
+        removeSlot(slotsByHandle[handle]);
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < size; slot++) {
+            slotsByHandle[handles[slot]] = -1;
+        }
+        size = 0;
+        grid.clear();
+        wakeups.clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Ячейка кролика или -1, если его уже нет
+    public int slotOf(int handle) {
+        return handle >= 0 && handle < slotsByHandle.length ? slotsByHandle[handle] : -1;
+    }
+
+    // Возвращает оставшееся здоровье; убитый кролик сразу удаляется
+    public int damage(int handle, int damage) {
+        int slot = slotOf(handle);
+        if (slot < 0) return 0;
+        int health = Math.max(0, healths[slot] - damage);
+        healths[slot] = health;
+        if (health == 0) {
+            removeSlot(slot);
+        }
+        return health;
+    }
+
+    // ============ ДОСТУП ПО ЯЧЕЙКАМ ============
+    // Ячейки действительны до следующего add, remove или damage
+
+    public int getHandle(int slot) {
+        return handles[slot];
+    }
+
+    public int getX(int slot) {
+        return xs[slot];
+    }
+
+    public int getY(int slot) {
+        return ys[slot];
+    }
+
+    public int getHealth(int slot) {
+        return healths[slot];
+    }
+
+    public boolean isAlive(int slot) {
+        return healths[slot] > 0;
+    }
+
+    // Координаты для кадра между шагами: alpha = 0 - прошлый шаг, 1 - текущий.
+    // Прыжок виден только на том шаге, на котором случился
+    public double getRenderX(int slot, double alpha) {
+        if (moveTicks[slot] != wakeups.getCurrentTick()) return xs[slot];
+        return previousXs[slot] + (xs[slot] - previousXs[slot]) * alpha;
+    }
+
+    public double getRenderY(int slot, double alpha) {
+        if (moveTicks[slot] != wakeups.getCurrentTick()) return ys[slot];
+        return previousYs[slot] + (ys[slot] - previousYs[slot]) * alpha;
+    }
+
+    // ============ ПОИСК ============
+    // Результаты - номера; ячейку дает slotOf
+
+    public int queryRect(double minX, double minY, double maxX, double maxY) {
+        return grid.queryRect(minX, minY, maxX, maxY);
+    }
+
+    public int queryRadius(double x, double y, double radius) {
+        return grid.queryRadius(x, y, radius);
+    }
+
+    public int nearest(double x, double y, int k, double maxRadius) {
+        return grid.nearest(x, y, k, maxRadius);
+    }
+
+    public int getResultHandle(int index) {
+        return grid.getResultHandle(index);
+    }
+
+    // ============ СИМУЛЯЦИЯ ============
+
+    // Один шаг: бродят только проснувшиеся на нем кролики.
+    // Решения считаются параллельно по состоянию прошлого шага и пишутся в
+    // буферы следующего; затем они применяются по порядку (чанк, номер).
+    // Кролик читает только свое состояние, неизменную на этой фазе карту и
+    // снимок сгенерированных чанков, поэтому результат не зависит от числа
+    // потоков и от фоновой генерации
+    public void update(ChunkedWorld world, SimulationRegions regions) {
+        regions.captureGenerated(world);
+        thaw(regions);
+
+        int count = wakeups.advance();
+        if (count == 0) return;
+        if (count > dueKeys.length) {
+            int capacity = Math.max(count, dueKeys.length * 2);
+            dueKeys = new long[capacity];
+            dueSlots = new int[capacity];
+            nextXs = new int[capacity];
+            nextYs = new int[capacity];
+            nextDelays = new int[capacity];
+        }
+
+        // Проснувшиеся группируются по чанкам: соседи по карте - соседи в задачах
+        for (int i = 0; i < count; i++) {
+            int handle = wakeups.getDue(i);
+            int slot = slotsByHandle[handle];
+            long chunk = (ys[slot] / GameConstants.CHUNK_SIZE) * (long) chunksX + xs[slot] / GameConstants.CHUNK_SIZE;
+            dueKeys[i] = (chunk << 32) | handle;
+        }
+        Arrays.sort(dueKeys, 0, count);
+        for (int i = 0; i < count; i++) {
+            dueSlots[i] = slotsByHandle[(int) dueKeys[i]];
+        }
+
+        if (count >= PARALLEL_THRESHOLD) {
+            pool.invoke(new WakeTask(world, regions, 0, count));
+        } else {
+            wakeRange(world, regions, 0, count);
+        }
+
+        // Слияние: прыжки переносятся в позиции и сетку, кролики встают в расписание
+        long tick = wakeups.getCurrentTick();
+        for (int i = 0; i < count; i++) {
+            int slot = dueSlots[i];
+            if (nextDelays[i] == 0) continue;
+
+            if (nextXs[i] != xs[slot] || nextYs[i] != ys[slot]) {
+                previousXs[slot] = xs[slot];
+                previousYs[slot] = ys[slot];
+                xs[slot] = nextXs[i];
+                ys[slot] = nextYs[i];
+                moveTicks[slot] = tick;
+                grid.move(handles[slot], nextXs[i], nextYs[i]);
+            }
+            wakeups.scheduleAfter(handles[slot], nextDelays[i]);
+        }
+    }
+
+    // Решения проснувшихся с индексами from..to-1
+    private void wakeRange(ChunkedWorld world, SimulationRegions regions, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int slot = dueSlots[i];
+            nextXs[i] = xs[slot];
+            nextYs[i] = ys[slot];
+            switch (regions.getLevel(xs[slot], ys[slot])) {
+                case SimulationRegions.ACTIVE:
+                    wake(i, slot, world, regions, HOP_CHANCE);
+                    nextDelays[i] = nextDelay(slot);
+                    break;
+                case SimulationRegions.COARSE:
+                    wake(i, slot, world, regions, COARSE_HOP_CHANCE);
+                    nextDelays[i] = nextDelay(slot) * COARSE_WAKEUPS;
+                    break;
+                default:
+                    // Замерзший кролик снимается с расписания до оттепели
+                    nextDelays[i] = 0;
+                    break;
+            }
+        }
+    }
+
+    private class WakeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkedWorld world;
+        private final SimulationRegions regions;
+        private final int from;
+        private final int to;
+
+        WakeTask(ChunkedWorld world, SimulationRegions regions, int from, int to) {
+            this.world = world;
+            this.regions = regions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new WakeTask(world, regions, from, middle),
+                          new WakeTask(world, regions, middle, to));
+                return;
+            }
+            wakeRange(world, regions, from, to);
+        }
+    }
+
+    // Будит уснувших в оттаявших чанках, вразброс по ближайшим шагам
+    private void thaw(SimulationRegions regions) {
+        for (int i = 0; i < regions.getThawedCount(); i++) {
+            int tileX = regions.getThawedTileX(i);
+            int tileY = regions.getThawedTileY(i);
+            int count = grid.queryRect(tileX, tileY, tileX + GameConstants.CHUNK_SIZE, tileY + GameConstants.CHUNK_SIZE);
+            for (int j = 0; j < count; j++) {
+                int handle = grid.getResultHandle(j);
+                if (!wakeups.isScheduled(handle)) {
+                    wakeups.scheduleAfter(handle, 1 + nextInt(slotsByHandle[handle], 20));
+                }
+            }
+        }
+        regions.drainThawed();
+    }
+
+    public long getCurrentTick() {
+        return wakeups.getCurrentTick();
+    }
+
+    private int nextDelay(int slot) {
+        return MIN_DELAY + nextInt(slot, DELAY_SPREAD);
+    }
+
+    // Случайный прыжок на соседнюю траву, в буфер следующего шага. Вне
+    // сгенерированных на начало шага чанков кролик не прыгает - симуляция
+    // не должна запускать генерацию мира
+    private void wake(int due, int slot, ChunkedWorld world, SimulationRegions regions, double hopChance) {
+        if (nextDouble(slot) >= hopChance) return;
+
+        int x = xs[slot];
+        int y = ys[slot];
+        int newX = x + nextInt(slot, 3) - 1;
+        int newY = y + nextInt(slot, 3) - 1;
+
+        if ((newX != x || newY != y) && world.isInside(newX, newY) &&
+            regions.isGenerated(newX, newY) &&
+            world.getTile(newX, newY) == GameConstants.GRASS) {
+            nextXs[due] = newX;
+            nextYs[due] = newY;
+        }
+    }
+
+    // ============ ВНУТРЕННЕЕ ============
+
+    // SplitMix64 на состоянии кролика
+    private long nextLong(int slot) {
+        long state = randomStates[slot] + GOLDEN_GAMMA;
+        randomStates[slot] = state;
+        return HashRandom.mix(state);
+    }
+
+    private double nextDouble(int slot) {
+        return (nextLong(slot) >>> 11) * 0x1.0p-53;
+    }
+
+    private int nextInt(int slot, int bound) {
+        return (int) (((nextLong(slot) >>> 33) * bound) >>> 31);
+    }
+
+    private void removeSlot(int slot) {
+        int handle = handles[slot];
+        grid.remove(handle);
+        wakeups.cancel(handle);
+        slotsByHandle[handle] = -1;
+
+        int last = --size;
+        if (slot != last) {
+            xs[slot] = xs[last];
+            ys[slot] = ys[last];
+            previousXs[slot] = previousXs[last];
+            previousYs[slot] = previousYs[last];
+            moveTicks[slot] = moveTicks[last];
+            healths[slot] = healths[last];
+            randomStates[slot] = randomStates[last];
+            handles[slot] = handles[last];
+            slotsByHandle[handles[slot]] = slot;
+        }
+    }
+
+    private void grow() {
+        int capacity = xs.length * 2;
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        previousXs = Arrays.copyOf(previousXs, capacity);
+        previousYs = Arrays.copyOf(previousYs, capacity);
+        moveTicks = Arrays.copyOf(moveTicks, capacity);
+        healths = Arrays.copyOf(healths, capacity);
+        randomStates = Arrays.copyOf(randomStates, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+    }
+}
@@ -0,0 +1,78 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Время кадра до и после атласа: полный проход по видимым тайлам прежним
+// способом (поиск текстуры по имени + масштабирующий drawImage исходного
+// изображения) и копированием регионов атласа, плюс кадр GamePanel целиком.
+// Запуск: java -cp build RenderBenchmark
+public class RenderBenchmark {
+    private static final int TILES_X = GameConstants.SCREEN_WIDTH / GameConstants.TILE_SIZE;
+    private static final int TILES_Y = (GameConstants.SCREEN_HEIGHT - GameConstants.UI_PANEL_HEIGHT) / GameConstants.TILE_SIZE;
+    private static final int WARMUP_FRAMES = 100;
+    private static final int MEASURED_FRAMES = 300;
+
+    public static void main(String[] args) {
+        TextureManager textureManager = TextureManager.getInstance();
+        BufferedImage target = createTarget();
+
+        // Типичный состав экрана: в основном трава и деревья, немного воды и построек
+        char[] tiles = new char[TILES_X * TILES_Y];
+        char[] palette = {
+            GameConstants.GRASS, GameConstants.GRASS, GameConstants.GRASS, GameConstants.TREE,
+            GameConstants.TREE, GameConstants.WATER, GameConstants.STONE, GameConstants.WOOD_PLANK
+        };
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = palette[(int) (HashRandom.unit(1, i % TILES_X, i / TILES_X, 0) * palette.length)];
+        }
+
+        double legacy = measure("Текстуры по имени", target, g -> {
+            for (int i = 0; i < tiles.length; i++) {
+                BufferedImage texture = textureManager.getTexture(GameConstants.getTerrainTexture(tiles[i]));
+                g.drawImage(texture, (i % TILES_X) * GameConstants.TILE_SIZE, (i / TILES_X) * GameConstants.TILE_SIZE,
+                            GameConstants.TILE_SIZE, GameConstants.TILE_SIZE, null);
+            }
+        });
+        double atlas = measure("Атлас", target, g -> {
+            for (int i = 0; i < tiles.length; i++) {
+                textureManager.drawSprite(g, GameConstants.getTerrainSprite(tiles[i]),
+                    (i % TILES_X) * GameConstants.TILE_SIZE, (i / TILES_X) * GameConstants.TILE_SIZE);
+            }
+        });
+        System.out.printf("   ускорение: %.2fx%n", legacy / atlas);
+
+        GamePanel panel = new GamePanel(null);
+        panel.setSize(GameConstants.SCREEN_WIDTH, GameConstants.SCREEN_HEIGHT);
+        measure("Кадр GamePanel", target, panel::paint);
+        RenderPipeline pipeline = panel.getRenderPipeline();
+        System.out.println("   команд: " + pipeline.getCommandCount() + ", смен состояния Graphics2D: " + pipeline.getStateChanges());
+        System.exit(0);
+    }
+
+    private static BufferedImage createTarget() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(GameConstants.SCREEN_WIDTH, GameConstants.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+            .createCompatibleImage(GameConstants.SCREEN_WIDTH, GameConstants.SCREEN_HEIGHT, Transparency.OPAQUE);
+    }
+
+    // Возвращает среднее время кадра в миллисекундах
+    private static double measure(String name, BufferedImage target, java.util.function.Consumer<Graphics2D> frame) {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            drawFrame(target, frame);
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            drawFrame(target, frame);
+        }
+        double frameMs = (System.nanoTime() - startTime) / 1e6 / MEASURED_FRAMES;
+        System.out.printf("%s: %.3f мс/кадр%n", name, frameMs);
+        return frameMs;
+    }
+
+    private static void drawFrame(BufferedImage target, java.util.function.Consumer<Graphics2D> frame) {
+        Graphics2D g2d = target.createGraphics();
+        frame.accept(g2d);
+        g2d.dispose();
+    }
+}
@@ -0,0 +1,266 @@
+import java.awt.*;
+import java.util.Arrays;
+
+// Один слой кадра: команды отрисовки сначала собираются, затем
+// сортируются по проходу и состоянию Graphics2D (цвет, шрифт, штрих,
+// сглаживание) и отправляются пачками - состояние меняется один раз на пачку.
+// Проход задает порядок внутри слоя (например, фон полоски здоровья под
+// заливкой); внутри одного прохода и состояния порядок добавления сохраняется.
+// Все буферы переиспользуются между кадрами
+public class RenderLayer {
+    private static final int OP_SPRITE = 0;
+    private static final int OP_IMAGE = 1;
+    private static final int OP_IMAGE_REGION = 2;
+    private static final int OP_FILL_RECT = 3;
+    private static final int OP_DRAW_RECT = 4;
+    private static final int OP_LINE = 5;
+    private static final int OP_TEXT = 6;
+
+    private static final int MAX_PASSES = 16;
+    // Состояние копирования изображений: от цвета, шрифта и штриха не зависит
+    private static final int IMAGE_STATE = 0;
+
+    private final String name;
+
+    // Команды: параллельные массивы
+    private int size = 0;
+    private int[] keys = new int[64];
+    private int[] ops = new int[64];
+    private int[] args = new int[64 * 6];
+    private Object[] refs = new Object[64];
+
+    // Порядок отправки и буфер для сортировки слиянием
+    private int[] order = new int[64];
+    private int[] scratch = new int[64];
+
+    // Состояния, встреченные в этом слое; ищутся линейно - их единицы
+    private Color[] stateColors = new Color[16];
+    private Font[] stateFonts = new Font[16];
+    private Stroke[] stateStrokes = new Stroke[16];
+    private boolean[] stateAntialias = new boolean[16];
+    private int stateCount = 1;
+
+    private int stateChanges = 0;
+
+    public RenderLayer(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void clear() {
+        Arrays.fill(refs, 0, size, null);
+        size = 0;
+        stateChanges = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCommandCount() {
+        return size;
+    }
+
+    // Сколько раз менялось состояние Graphics2D при последней отправке
+    public int getStateChanges() {
+        return stateChanges;
+    }
+
+    // ============ КОМАНДЫ ============
+
+    public void sprite(int pass, int spriteId, int x, int y) {
+        int index = add(pass, IMAGE_STATE, OP_SPRITE, null);
+        setArgs(index, spriteId, x, y, 0, 0, 0);
+    }
+
+    public void image(int pass, Image image, int x, int y) {
+        int index = add(pass, IMAGE_STATE, OP_IMAGE, image);
+        setArgs(index, x, y, 0, 0, 0, 0);
+    }
+
+    // Часть изображения width x height из (sourceX, sourceY) в (x, y)
+    public void imageRegion(int pass, Image image, int x, int y, int sourceX, int sourceY, int width, int height) {
+        int index = add(pass, IMAGE_STATE, OP_IMAGE_REGION, image);
+        setArgs(index, x, y, sourceX, sourceY, width, height);
+    }
+
+    // Полупрозрачные заливки лучше рисовать со сглаживанием: этот конвейер
+    // переиспользует свои буферы, а обычный выделяет растр на каждую заливку
+    public void fillRect(int pass, Color color, boolean antialias, int x, int y, int width, int height) {
+        int index = add(pass, state(color, null, null, antialias), OP_FILL_RECT, null);
+        setArgs(index, x, y, width, height, 0, 0);
+    }
+
+    public void drawRect(int pass, Color color, int x, int y, int width, int height) {
+        int index = add(pass, state(color, null, null, false), OP_DRAW_RECT, null);
+        setArgs(index, x, y, width, height, 0, 0);
+    }
+
+    // Линии всегда сглаженные
+    public void line(int pass, Color color, Stroke stroke, int x1, int y1, int x2, int y2) {
+        int index = add(pass, state(color, null, stroke, true), OP_LINE, null);
+        setArgs(index, x1, y1, x2, y2, 0, 0);
+    }
+
+    public void text(int pass, Color color, Font font, String text, int x, int y) {
+        int index = add(pass, state(color, font, null, false), OP_TEXT, text);
+        setArgs(index, x, y, 0, 0, 0, 0);
+    }
+
+    // ============ ОТПРАВКА ============
+
+    // Рисует собранные команды; сглаживание и штрих g возвращаются как были
+    public void submit(Graphics2D g) {
+        stateChanges = 0;
+        if (size == 0) return;
+        sort();
+
+        Object originalAntialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        Stroke originalStroke = g.getStroke();
+        TextureManager textureManager = TextureManager.getInstance();
+        int currentState = -1;
+
+        for (int i = 0; i < size; i++) {
+            int command = order[i];
+            int state = keys[command] & 0xFFFF;
+            if (state != currentState && state != IMAGE_STATE) {
+                applyState(g, state, originalStroke);
+                currentState = state;
+                stateChanges++;
+            }
+
+            int a = command * 6;
+            switch (ops[command]) {
+                case OP_SPRITE:
+                    textureManager.drawSprite(g, args[a], args[a + 1], args[a + 2]);
+                    break;
+                case OP_IMAGE:
+                    g.drawImage((Image) refs[command], args[a], args[a + 1], null);
+                    break;
+                case OP_IMAGE_REGION: {
+                    int x = args[a];
+                    int y = args[a + 1];
+                    int sourceX = args[a + 2];
+                    int sourceY = args[a + 3];
+                    int width = args[a + 4];
+                    int height = args[a + 5];
+                    g.drawImage((Image) refs[command], x, y, x + width, y + height,
+                                sourceX, sourceY, sourceX + width, sourceY + height, null);
+                    break;
+                }
+                case OP_FILL_RECT:
+                    g.fillRect(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                    break;
+                case OP_DRAW_RECT:
+                    g.drawRect(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                    break;
+                case OP_LINE:
+                    g.drawLine(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                    break;
+                case OP_TEXT:
+                    g.drawString((String) refs[command], args[a], args[a + 1]);
+                    break;
+            }
+        }
+
+        g.setStroke(originalStroke);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, originalAntialias);
+    }
+
+    private void applyState(Graphics2D g, int state, Stroke defaultStroke) {
+        g.setColor(stateColors[state]);
+        if (stateFonts[state] != null) {
+            g.setFont(stateFonts[state]);
+        }
+        g.setStroke(stateStrokes[state] != null ? stateStrokes[state] : defaultStroke);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+            stateAntialias[state] ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+    }
+
+    // ============ ВНУТРЕННЕЕ ============
+
+    private int add(int pass, int state, int op, Object ref) {
+        if (pass < 0 || pass >= MAX_PASSES) {
+            throw new IllegalArgumentException("Проход вне диапазона: " + pass);
+        }
+        if (size == keys.length) {
+            grow();
+        }
+        int index = size++;
+        keys[index] = (pass << 16) | state;
+        ops[index] = op;
+        refs[index] = ref;
+        return index;
+    }
+
+    private void setArgs(int index, int a0, int a1, int a2, int a3, int a4, int a5) {
+        int a = index * 6;
+        args[a] = a0;
+        args[a + 1] = a1;
+        args[a + 2] = a2;
+        args[a + 3] = a3;
+        args[a + 4] = a4;
+        args[a + 5] = a5;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        ops = Arrays.copyOf(ops, capacity);
+        args = Arrays.copyOf(args, capacity * 6);
+        refs = Arrays.copyOf(refs, capacity);
+        order = new int[capacity];
+        scratch = new int[capacity];
+    }
+
+    private int state(Color color, Font font, Stroke stroke, boolean antialias) {
+        for (int i = 1; i < stateCount; i++) {
+            if (stateColors[i] == color && stateFonts[i] == font &&
+                stateStrokes[i] == stroke && stateAntialias[i] == antialias) {
+                return i;
+            }
+        }
+        if (stateCount == stateColors.length) {
+            int capacity = stateCount * 2;
+            stateColors = Arrays.copyOf(stateColors, capacity);
+            stateFonts = Arrays.copyOf(stateFonts, capacity);
+            stateStrokes = Arrays.copyOf(stateStrokes, capacity);
+            stateAntialias = Arrays.copyOf(stateAntialias, capacity);
+        }
+        stateColors[stateCount] = color;
+        stateFonts[stateCount] = font;
+        stateStrokes[stateCount] = stroke;
+        stateAntialias[stateCount] = antialias;
+        return stateCount++;
+    }
+
+    // Устойчивая сортировка слиянием индексов команд по ключу
+    private void sort() {
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] from = order;
+        int[] to = scratch;
+        for (int width = 1; width < size; width *= 2) {
+            for (int left = 0; left < size; left += 2 * width) {
+                int middle = Math.min(left + width, size);
+                int right = Math.min(left + 2 * width, size);
+                int i = left, j = middle, k = left;
+                while (i < middle && j < right) {
+                    to[k++] = keys[from[j]] < keys[from[i]] ? from[j++] : from[i++];
+                }
+                while (i < middle) to[k++] = from[i++];
+                while (j < right) to[k++] = from[j++];
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != order) {
+            System.arraycopy(from, 0, order, 0, size);
+        }
+    }
+}
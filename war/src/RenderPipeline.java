@@ -0,0 +1,60 @@
+import java.awt.Graphics2D;
+
+// Кадр как последовательность слоев снизу вверх: местность, метки на земле
+// (радиус и вспышка атаки), сущности, то, что над ними (полоски здоровья,
+// имена), интерфейс. Каждый слой собирает свои команды за кадр и рисует их
+// пачками; пустые слои пропускаются. Местность и интерфейс - уже готовые
+// изображения (TerrainChunkCache, HudLayer), их слои только копируют их
+public class RenderPipeline {
+    public static final int TERRAIN = 0;
+    public static final int GROUND = 1;
+    public static final int ENTITIES = 2;
+    public static final int OVERHEAD = 3;
+    public static final int HUD = 4;
+
+    private static final String[] LAYER_NAMES = {"terrain", "ground", "entities", "overhead", "hud"};
+
+    private final RenderLayer[] layers = new RenderLayer[LAYER_NAMES.length];
+
+    public RenderPipeline() {
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = new RenderLayer(LAYER_NAMES[i]);
+        }
+    }
+
+    public RenderLayer layer(int layer) {
+        return layers[layer];
+    }
+
+    // Начало кадра: команды прошлого кадра отбрасываются
+    public void begin() {
+        for (RenderLayer layer : layers) {
+            layer.clear();
+        }
+    }
+
+    public void submit(Graphics2D g) {
+        for (RenderLayer layer : layers) {
+            if (!layer.isEmpty()) {
+                layer.submit(g);
+            }
+        }
+    }
+
+    // Команд и смен состояния Graphics2D в последнем кадре (для замеров)
+    public int getCommandCount() {
+        int count = 0;
+        for (RenderLayer layer : layers) {
+            count += layer.getCommandCount();
+        }
+        return count;
+    }
+
+    public int getStateChanges() {
+        int count = 0;
+        for (RenderLayer layer : layers) {
+            count += layer.getStateChanges();
+        }
+        return count;
+    }
+}
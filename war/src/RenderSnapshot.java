@@ -0,0 +1,77 @@
+// Все, что нужно для кадра, на момент одного шага симуляции: камера,
+// игрок, кролики и удаленные игроки рядом с камерой (их позиции на прошлом
+// и текущем шаге для интерполяции), атака, сообщение и интерфейс.
+// Заполняется потоком симуляции в конце шага и передается рисованию через
+// TripleBuffer. Массивы переиспользуются.
+//
+// Исключение - мир: он в снимке не копируется, а передается живым. Из него
+// рисование берет только сгенерированные чанки (getChunkIfGenerated) и
+// следит за их ревизиями, см. TerrainChunkCache
+public class RenderSnapshot {
+    public ChunkedWorld world;
+
+    public double cameraX;
+    public double cameraY;
+    public double previousCameraX;
+    public double previousCameraY;
+
+    public double playerX;
+    public double playerY;
+    public double playerPreviousX;
+    public double playerPreviousY;
+    public int playerDirection;
+
+    // Курсор и атака
+    public double mouseWorldX;
+    public double mouseWorldY;
+    public boolean showAttackRange;
+    public boolean canAttackCursor;
+    public boolean attacking;
+    public int attackAnimationFrame;
+    public int attackTargetX;
+    public int attackTargetY;
+
+    public int rabbitCount;
+    public double[] rabbitFromX = new double[64];
+    public double[] rabbitFromY = new double[64];
+    public double[] rabbitToX = new double[64];
+    public double[] rabbitToY = new double[64];
+    public int[] rabbitHealth = new int[64];
+
+    public boolean multiplayer;
+    public int remotePlayerCount;
+    public double[] remoteFromX = new double[8];
+    public double[] remoteFromY = new double[8];
+    public double[] remoteToX = new double[8];
+    public double[] remoteToY = new double[8];
+    public int[] remoteDirection = new int[8];
+    public String[] remoteName = new String[8];
+
+    public String gameMessage = "";
+    public boolean inventoryVisible;
+    public final HudLayer.State hud = new HudLayer.State();
+
+    // Место под count кроликов; прежние значения не сохраняются
+    public void ensureRabbits(int count) {
+        if (count > rabbitHealth.length) {
+            int capacity = Math.max(count, rabbitHealth.length * 2);
+            rabbitFromX = new double[capacity];
+            rabbitFromY = new double[capacity];
+            rabbitToX = new double[capacity];
+            rabbitToY = new double[capacity];
+            rabbitHealth = new int[capacity];
+        }
+    }
+
+    public void ensureRemotePlayers(int count) {
+        if (count > remoteDirection.length) {
+            int capacity = Math.max(count, remoteDirection.length * 2);
+            remoteFromX = new double[capacity];
+            remoteFromY = new double[capacity];
+            remoteToX = new double[capacity];
+            remoteToY = new double[capacity];
+            remoteDirection = new int[capacity];
+            remoteName = new String[capacity];
+        }
+    }
+}
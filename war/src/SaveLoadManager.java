@@ -5,6 +5,10 @@ public class SaveLoadManager {
     private static final String SAVE_DIRECTORY = "saves";
     private static final String SAVE_EXTENSION = ".gmsave";
     
+    // Индекс сохранений: список имен и время изменения папки, по которому он построен
+    private List<String> saveIndex;
+    private long indexedModified;
+    
     public SaveLoadManager() {
         createSaveDirectory();
     }
@@ -38,6 +42,7 @@ public class SaveLoadManager {
             
             try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
                 oos.writeObject(saveData);
+                invalidateSaveIndex();
                 System.out.println("✅ Игра сохранена: " + filename);
                 return true;
             }
@@ -74,10 +79,20 @@ public class SaveLoadManager {
         }
     }
     
-    // Получение списка сохранений
-    public List<String> getSaveList() {
+    // Получение списка сохранений (из индекса; папка пересканируется, если изменилась)
+    public synchronized List<String> getSaveList() {
+        File saveDir = new File(SAVE_DIRECTORY);
+        if (saveIndex == null || saveDir.lastModified() != indexedModified) {
+            scanSaveIndex();
+        }
+        return new ArrayList<>(saveIndex);
+    }
+    
+    // Полное сканирование папки сохранений
+    public synchronized void scanSaveIndex() {
         List<String> saveList = new ArrayList<>();
         File saveDir = new File(SAVE_DIRECTORY);
+        indexedModified = saveDir.lastModified();
         
         if (saveDir.exists() && saveDir.isDirectory()) {
             File[] saveFiles = saveDir.listFiles((dir, name) -> name.endsWith(SAVE_EXTENSION));
@@ -92,19 +107,25 @@ public class SaveLoadManager {
         }
         
         Collections.sort(saveList);
-        return saveList;
+        saveIndex = saveList;
+    }
+    
+    private synchronized void invalidateSaveIndex() {
+        saveIndex = null;
     }
     
     // Удаление сохранения
     public boolean deleteSave(String saveName) {
-    try {
-        File saveFile = new File(SAVES_DIR + saveName + ".sav");
-        return saveFile.delete();
-    } catch (Exception e) {
-        System.err.println("❌ Ошибка удаления сохранения: " + e.getMessage());
-        return false;
+        try {
+            File saveFile = new File(SAVE_DIRECTORY + File.separator + saveName + SAVE_EXTENSION);
+            boolean deleted = saveFile.delete();
+            invalidateSaveIndex();
+            return deleted;
+        } catch (Exception e) {
+            System.err.println("❌ Ошибка удаления сохранения: " + e.getMessage());
+            return false;
+        }
     }
-}
     
     // Проверка существования сохранения
     public boolean saveExists(String saveName) {
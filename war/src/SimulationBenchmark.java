@@ -0,0 +1,89 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Время шага симуляции большой популяции кроликов при разном числе потоков.
+// Каждый прогон начинается с одинакового состояния; итоговые позиции всех
+// кроликов должны совпасть бит в бит, иначе программа завершается с кодом 1.
+// Запуск: java -cp build SimulationBenchmark [число кроликов]
+public class SimulationBenchmark {
+    private static final int DEFAULT_RABBITS = 200_000;
+    private static final int WARMUP_TICKS = 300;
+    private static final int MEASURED_TICKS = 1000;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        int rabbitCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RABBITS;
+        int centerX = GameConstants.MAP_WIDTH / 2;
+        int centerY = GameConstants.MAP_HEIGHT / 2;
+
+        ChunkedWorld world = new ChunkedWorld(SEED);
+        world.generateArea(centerX, centerY, GameConstants.COARSE_REGION_RADIUS);
+
+        List<Point> focus = new ArrayList<>();
+        focus.add(new Point(centerX, centerY));
+
+        int[] threadCounts = {1, 2, 4, Runtime.getRuntime().availableProcessors()};
+        double baseline = 0;
+        long expectedChecksum = 0;
+        for (int i = 0; i < threadCounts.length; i++) {
+            int threads = threadCounts[i];
+            if (i > 0 && threads <= threadCounts[i - 1]) continue;
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            SimulationRegions regions = new SimulationRegions(GameConstants.MAP_WIDTH, GameConstants.MAP_HEIGHT);
+            regions.update(focus);
+            RabbitStore rabbits = populate(world, rabbitCount, centerX, centerY, pool);
+
+            for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+                rabbits.update(world, regions);
+            }
+            long start = System.nanoTime();
+            for (int tick = 0; tick < MEASURED_TICKS; tick++) {
+                rabbits.update(world, regions);
+            }
+            double msPerTick = (System.nanoTime() - start) / 1_000_000.0 / MEASURED_TICKS;
+            pool.shutdown();
+
+            long checksum = checksum(rabbits);
+            if (i == 0) {
+                baseline = msPerTick;
+                expectedChecksum = checksum;
+            }
+            System.out.printf("🐇 %d кроликов, потоков %d: %.3f мс на шаг (ускорение %.2fx), контрольная сумма %016x%n",
+                rabbits.size(), threads, msPerTick, baseline / msPerTick, checksum);
+            if (checksum != expectedChecksum) {
+                System.out.println("❌ Результат зависит от числа потоков");
+                System.exit(1);
+            }
+        }
+        System.out.println("✅ Результат одинаков при любом числе потоков");
+        System.exit(0);
+    }
+
+    // Кролики на траве в квадрате вокруг центра, одинаково для каждого прогона
+    private static RabbitStore populate(ChunkedWorld world, int count, int centerX, int centerY, ForkJoinPool pool) {
+        RabbitStore rabbits = new RabbitStore(GameConstants.MAP_WIDTH, GameConstants.MAP_HEIGHT,
+            GameConstants.SPATIAL_CELL_SIZE, pool);
+        int half = GameConstants.COARSE_REGION_RADIUS * GameConstants.CHUNK_SIZE;
+        HashRandom random = new HashRandom(SEED);
+        while (rabbits.size() < count) {
+            int x = centerX - half + (int) (random.nextDouble() * half * 2);
+            int y = centerY - half + (int) (random.nextDouble() * half * 2);
+            if (world.getTile(x, y) == GameConstants.GRASS) {
+                rabbits.add(x, y, RabbitStore.INITIAL_HEALTH, HashRandom.hash(SEED, x, y, HashRandom.SALT_RABBITS));
+            }
+        }
+        return rabbits;
+    }
+
+    private static long checksum(RabbitStore rabbits) {
+        long checksum = 0;
+        for (int slot = 0; slot < rabbits.size(); slot++) {
+            checksum = HashRandom.mix(checksum ^ ((long) rabbits.getHandle(slot) << 40) ^
+                ((long) rabbits.getX(slot) << 20) ^ rabbits.getY(slot));
+        }
+        return checksum;
+    }
+}
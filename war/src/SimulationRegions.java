@@ -0,0 +1,197 @@
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Насколько подробно симулировать каждый чанк мира. Вокруг каждого игрока
+// (локального и удаленных) в радиусе ACTIVE_REGION_RADIUS чанков - полная
+// симуляция, в кольце до COARSE_REGION_RADIUS - грубая, дальше мир заморожен.
+//
+// Уровни пересчитываются только когда игрок переходит в другой чанк и
+// только в квадратах вокруг старых и новых позиций игроков, так что
+// стоимость зависит от числа игроков, а не от размера мира. Чанки, которые
+// вышли из заморозки, копятся до drainThawed - по ним симуляция будит
+// замерзшие сущности.
+//
+// Фоновая генерация публикует чанки в любой момент шага, поэтому
+// симуляция не спрашивает мир, сгенерирован ли чанк, а смотрит в снимок,
+// снятый в начале шага (captureGenerated). Иначе решение сущности
+// зависело бы от того, успел ли чанк догенерироваться, и от числа потоков
+public class SimulationRegions {
+    public static final byte FROZEN = 0;
+    public static final byte COARSE = 1;
+    public static final byte ACTIVE = 2;
+
+    private final int chunksX;
+    private final int chunksY;
+    private final byte[] levels;
+
+    // Чанки, где сейчас стоят игроки
+    private int[] focusChunkXs = new int[4];
+    private int[] focusChunkYs = new int[4];
+    private int focusCount = 0;
+
+    // Пересчет: новые уровни затронутых чанков, метка "уже затронут"
+    private final byte[] nextLevels;
+    private final int[] stamps;
+    private int stamp = 0;
+    private int[] touched = new int[256];
+    private int touchedCount = 0;
+
+    private int[] thawed = new int[256];
+    private int thawedCount = 0;
+
+    // Сгенерированные чанки на начало шага. Чанк не пропадает, пока жив
+    // мир, поэтому отметки только добавляются
+    private final BitSet generated = new BitSet();
+
+    public SimulationRegions(int worldWidth, int worldHeight) {
+        this.chunksX = (worldWidth + GameConstants.CHUNK_SIZE - 1) / GameConstants.CHUNK_SIZE;
+        this.chunksY = (worldHeight + GameConstants.CHUNK_SIZE - 1) / GameConstants.CHUNK_SIZE;
+        this.levels = new byte[chunksX * chunksY];
+        this.nextLevels = new byte[chunksX * chunksY];
+        this.stamps = new int[chunksX * chunksY];
+    }
+
+    // Уровень симуляции тайла
+    public byte getLevel(int tileX, int tileY) {
+        int chunkX = Math.floorDiv(tileX, GameConstants.CHUNK_SIZE);
+        int chunkY = Math.floorDiv(tileY, GameConstants.CHUNK_SIZE);
+        if (chunkX < 0 || chunkY < 0 || chunkX >= chunksX || chunkY >= chunksY) {
+            return FROZEN;
+        }
+        return levels[chunkY * chunksX + chunkX];
+    }
+
+    // Позиции игроков в тайлах; пересчет, только если кто-то сменил чанк
+    public void update(List<Point> focusTiles) {
+        if (sameFocus(focusTiles)) return;
+
+        stamp++;
+        touchedCount = 0;
+        for (Point focus : focusTiles) {
+            forEachInSquare(Math.floorDiv(focus.x, GameConstants.CHUNK_SIZE), Math.floorDiv(focus.y, GameConstants.CHUNK_SIZE),
+                GameConstants.COARSE_REGION_RADIUS, true);
+        }
+        // Вокруг прежних позиций все, до чего не дотянулись новые, замерзает
+        for (int i = 0; i < focusCount; i++) {
+            forEachInSquare(focusChunkXs[i], focusChunkYs[i], GameConstants.COARSE_REGION_RADIUS, false);
+        }
+
+        for (int i = 0; i < touchedCount; i++) {
+            int chunk = touched[i];
+            if (levels[chunk] == FROZEN && nextLevels[chunk] != FROZEN) {
+                if (thawedCount == thawed.length) {
+                    thawed = Arrays.copyOf(thawed, thawedCount * 2);
+                }
+                thawed[thawedCount++] = chunk;
+            }
+            levels[chunk] = nextLevels[chunk];
+        }
+
+        focusCount = 0;
+        for (Point focus : focusTiles) {
+            if (focusCount == focusChunkXs.length) {
+                focusChunkXs = Arrays.copyOf(focusChunkXs, focusCount * 2);
+                focusChunkYs = Arrays.copyOf(focusChunkYs, focusCount * 2);
+            }
+            focusChunkXs[focusCount] = Math.floorDiv(focus.x, GameConstants.CHUNK_SIZE);
+            focusChunkYs[focusCount] = Math.floorDiv(focus.y, GameConstants.CHUNK_SIZE);
+            focusCount++;
+        }
+    }
+
+    // ============ СГЕНЕРИРОВАННЫЕ ЧАНКИ ============
+
+    // Начало шага: отмечает чанки, сгенерированные к этому моменту, в
+    // квадратах вокруг игроков - на чанк дальше грубой зоны, куда может
+    // шагнуть сущность с ее края
+    public void captureGenerated(ChunkedWorld world) {
+        int radius = GameConstants.COARSE_REGION_RADIUS + 1;
+        for (int i = 0; i < focusCount; i++) {
+            int minX = Math.max(0, focusChunkXs[i] - radius);
+            int maxX = Math.min(chunksX - 1, focusChunkXs[i] + radius);
+            int minY = Math.max(0, focusChunkYs[i] - radius);
+            int maxY = Math.min(chunksY - 1, focusChunkYs[i] + radius);
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cx = minX; cx <= maxX; cx++) {
+                    int chunk = cy * chunksX + cx;
+                    if (!generated.get(chunk) && world.getChunkIfGenerated(cx, cy) != null) {
+                        generated.set(chunk);
+                    }
+                }
+            }
+        }
+    }
+
+    // Был ли чанк тайла сгенерирован на начало шага
+    public boolean isGenerated(int tileX, int tileY) {
+        int chunkX = Math.floorDiv(tileX, GameConstants.CHUNK_SIZE);
+        int chunkY = Math.floorDiv(tileY, GameConstants.CHUNK_SIZE);
+        if (chunkX < 0 || chunkY < 0 || chunkX >= chunksX || chunkY >= chunksY) {
+            return false;
+        }
+        return generated.get(chunkY * chunksX + chunkX);
+    }
+
+    // ============ ОТТАЯВШИЕ ЧАНКИ ============
+
+    public int getThawedCount() {
+        return thawedCount;
+    }
+
+    // Область оттаявшего чанка в тайлах
+    public int getThawedTileX(int index) {
+        return (thawed[index] % chunksX) * GameConstants.CHUNK_SIZE;
+    }
+
+    public int getThawedTileY(int index) {
+        return (thawed[index] / chunksX) * GameConstants.CHUNK_SIZE;
+    }
+
+    public void drainThawed() {
+        thawedCount = 0;
+    }
+
+    // ============ ВНУТРЕННЕЕ ============
+
+    private boolean sameFocus(List<Point> focusTiles) {
+        if (focusTiles.size() != focusCount) return false;
+        for (int i = 0; i < focusCount; i++) {
+            Point focus = focusTiles.get(i);
+            if (Math.floorDiv(focus.x, GameConstants.CHUNK_SIZE) != focusChunkXs[i] ||
+                Math.floorDiv(focus.y, GameConstants.CHUNK_SIZE) != focusChunkYs[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Квадрат чанков вокруг центра; paint - поднять уровни по расстоянию до центра
+    private void forEachInSquare(int centerX, int centerY, int radius, boolean paint) {
+        int minX = Math.max(0, centerX - radius);
+        int maxX = Math.min(chunksX - 1, centerX + radius);
+        int minY = Math.max(0, centerY - radius);
+        int maxY = Math.min(chunksY - 1, centerY + radius);
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                int chunk = cy * chunksX + cx;
+                if (stamps[chunk] != stamp) {
+                    stamps[chunk] = stamp;
+                    nextLevels[chunk] = FROZEN;
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = chunk;
+                }
+                if (paint) {
+                    int distance = Math.max(Math.abs(cx - centerX), Math.abs(cy - centerY));
+                    byte level = distance <= GameConstants.ACTIVE_REGION_RADIUS ? ACTIVE : COARSE;
+                    if (level > nextLevels[chunk]) {
+                        nextLevels[chunk] = level;
+                    }
+                }
+            }
+        }
+    }
+}
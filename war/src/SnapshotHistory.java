@@ -0,0 +1,37 @@
+// Последние SIZE снимков по номерам (кольцо). Хост помнит отправленные
+// клиенту снимки, чтобы считать разницу от подтвержденного; клиент помнит
+// полученные, чтобы было к чему эту разницу применить. Номер 0 - пустой
+// снимок, от которого считается разница, пока подтверждений нет
+public class SnapshotHistory {
+    public static final int SIZE = 32;
+
+    private final PlayerSnapshot empty = new PlayerSnapshot();
+    private final PlayerSnapshot[] snapshots = new PlayerSnapshot[SIZE];
+    private final int[] sequences = new int[SIZE];
+
+    public SnapshotHistory() {
+        for (int i = 0; i < SIZE; i++) {
+            snapshots[i] = new PlayerSnapshot();
+        }
+    }
+
+    // Снимок с этим номером или null, если он уже вытеснен из кольца
+    public PlayerSnapshot get(int sequence) {
+        if (sequence == 0) return empty;
+        int slot = sequence & (SIZE - 1);
+        return sequences[slot] == sequence ? snapshots[slot] : null;
+    }
+
+    // Место под снимок с новым номером (вытесняет номер на SIZE меньше)
+    public PlayerSnapshot prepare(int sequence) {
+        int slot = sequence & (SIZE - 1);
+        sequences[slot] = sequence;
+        return snapshots[slot];
+    }
+
+    // Разницу от base можно применить к снимку sequence: base еще в кольце
+    // и место под sequence его не вытеснит
+    public static boolean canDelta(int base, int sequence) {
+        return base == 0 || (base < sequence && sequence - base < SIZE);
+    }
+}
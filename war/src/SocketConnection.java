@@ -0,0 +1,82 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+// Блокирующее соединение клиента с хостом: у клиента оно одно, поэтому
+// читает и пишет его по отдельному потоку
+public class SocketConnection extends ClientHandler implements Runnable {
+    private final Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private final PacketReader packet = new PacketReader();
+    
+    public SocketConnection(Socket socket, MultiplayerManager multiplayerManager) {
+        super(false, multiplayerManager);
+        this.socket = socket;
+        
+        try {
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка создания клиента: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public void run() {
+        Thread writer = new Thread(this::runWriter, "game-connection-writer");
+        writer.setDaemon(true);
+        writer.start();
+        try {
+            onOpen();
+            while (isConnected() && packet.readFrame(in)) {
+                onFrame(packet);
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка чтения сообщения: " + e.getMessage());
+        } finally {
+            disconnect();
+        }
+    }
+    
+    // Забирает из очереди все накопленное и пишет одним вызовом
+    private void runWriter() {
+        ByteBuffer spare = ByteBuffer.allocate(4096);
+        try {
+            ByteBuffer data;
+            while ((data = outbound.takePending(spare)) != null) {
+                out.write(data.array(), data.position(), data.remaining());
+                out.flush();
+                spare = data;
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка отправки: " + e.getMessage());
+            disconnect();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    protected void requestWrite() {
+        outbound.signal();
+    }
+    
+    @Override
+    protected void closeTransport() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.out.println("❌ Ошибка отключения клиента: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    protected boolean isTransportOpen() {
+        return !socket.isClosed();
+    }
+}
@@ -0,0 +1,286 @@
+import java.util.Arrays;
+
+// Равномерная сетка для поиска сущностей по месту: мир разбит на клетки
+// cellSize x cellSize тайлов, у каждой клетки - связный список сущностей
+// на массивах. Перемещение внутри клетки ничего не стоит, переход в
+// соседнюю - O(1). Запросы обходят только клетки, которые задевают.
+//
+// Сущность регистрируется через add и дальше адресуется номером (handle).
+// Результаты запросов складываются во внутренний буфер (getResult), поэтому
+// запросы не выделяют память и не вкладываются друг в друга
+public class SpatialGrid<T> {
+    private static final int NONE = -1;
+
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    private final int[] cellHeads;
+
+    // Сущности по номерам; свободные номера связаны через next
+    private Object[] entities = new Object[64];
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int[] cells = new int[64];
+    private int[] next = new int[64];
+    private int[] prev = new int[64];
+    private int used = 0;
+    private int freeHead = NONE;
+    private int size = 0;
+
+    // Результат последнего запроса
+    private int[] results = new int[64];
+    private double[] resultDistances = new double[64];
+    private int resultCount = 0;
+
+    public SpatialGrid(int width, int height, int cellSize) {
+        this.cellSize = cellSize;
+        this.cellsX = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.cellsY = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.cellHeads = new int[cellsX * cellsY];
+        Arrays.fill(cellHeads, NONE);
+    }
+
+    // ============ РЕГИСТРАЦИЯ ============
+
+    public int add(T entity, double x, double y) {
+        int handle;
+        if (freeHead != NONE) {
+            handle = freeHead;
+            freeHead = next[handle];
+        } else {
+            if (used == entities.length) {
+                grow();
+            }
+            handle = used++;
+        }
+        entities[handle] = entity;
+        xs[handle] = x;
+        ys[handle] = y;
+        link(handle, cellOf(x, y));
+        size++;
+        return handle;
+    }
+
+    public void move(int handle, double x, double y) {
+        xs[handle] = x;
+        ys[handle] = y;
+        int cell = cellOf(x, y);
+        if (cell != cells[handle]) {
+            unlink(handle);
+            link(handle, cell);
+        }
+    }
+
+    public void remove(int handle) {
+        unlink(handle);
+        entities[handle] = null;
+        cells[handle] = NONE;
+        next[handle] = freeHead;
+        freeHead = handle;
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(cellHeads, NONE);
+        Arrays.fill(entities, 0, used, null);
+        used = 0;
+        freeHead = NONE;
+        size = 0;
+        resultCount = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int handle) {
+        return (T) entities[handle];
+    }
+
+    public double getX(int handle) {
+        return xs[handle];
+    }
+
+    public double getY(int handle) {
+        return ys[handle];
+    }
+
+    // ============ ЗАПРОСЫ ============
+
+    // Сущности с minX <= x < maxX и minY <= y < maxY (например, видимая область)
+    public int queryRect(double minX, double minY, double maxX, double maxY) {
+        resultCount = 0;
+        int fromCellX = cellX(minX);
+        int toCellX = cellX(maxX);
+        int fromCellY = cellY(minY);
+        int toCellY = cellY(maxY);
+        for (int cy = fromCellY; cy <= toCellY; cy++) {
+            for (int cx = fromCellX; cx <= toCellX; cx++) {
+                for (int h = cellHeads[cy * cellsX + cx]; h != NONE; h = next[h]) {
+                    if (xs[h] >= minX && xs[h] < maxX && ys[h] >= minY && ys[h] < maxY) {
+                        addResult(h, 0);
+                    }
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    // Сущности не дальше radius от (x, y)
+    public int queryRadius(double x, double y, double radius) {
+        resultCount = 0;
+        double radiusSquared = radius * radius;
+        int fromCellX = cellX(x - radius);
+        int toCellX = cellX(x + radius);
+        int fromCellY = cellY(y - radius);
+        int toCellY = cellY(y + radius);
+        for (int cy = fromCellY; cy <= toCellY; cy++) {
+            for (int cx = fromCellX; cx <= toCellX; cx++) {
+                for (int h = cellHeads[cy * cellsX + cx]; h != NONE; h = next[h]) {
+                    double distanceSquared = distanceSquared(h, x, y);
+                    if (distanceSquared <= radiusSquared) {
+                        addResult(h, distanceSquared);
+                    }
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    // Первая сущность в тайле (tileX, tileY) или NONE (-1)
+    public int findAt(int tileX, int tileY) {
+        for (int h = cellHeads[cellOf(tileX, tileY)]; h != NONE; h = next[h]) {
+            if ((int) Math.floor(xs[h]) == tileX && (int) Math.floor(ys[h]) == tileY) {
+                return h;
+            }
+        }
+        return NONE;
+    }
+
+    // До k ближайших к (x, y) сущностей не дальше maxRadius, по возрастанию
+    // расстояния. Кольца клеток обходятся от центра, пока следующее кольцо
+    // может дать кого-то ближе k-го найденного
+    public int nearest(double x, double y, int k, double maxRadius) {
+        resultCount = 0;
+        if (k <= 0) return 0;
+        double maxSquared = maxRadius * maxRadius;
+        int centerX = cellX(x);
+        int centerY = cellY(y);
+        int maxRing = Math.max(cellsX, cellsY);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Ближайшая точка кольца не ближе (ring - 1) клеток от точки запроса
+            double ringDistance = Math.max(0, ring - 1) * (double) cellSize;
+            if (ringDistance * ringDistance > maxSquared) break;
+            if (resultCount == k && ringDistance * ringDistance > resultDistances[k - 1]) break;
+
+            for (int cy = centerY - ring; cy <= centerY + ring; cy++) {
+                if (cy < 0 || cy >= cellsY) continue;
+                boolean edgeRow = cy == centerY - ring || cy == centerY + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int cx = centerX - ring; cx <= centerX + ring; cx += Math.max(step, 1)) {
+                    if (cx < 0 || cx >= cellsX) continue;
+                    for (int h = cellHeads[cy * cellsX + cx]; h != NONE; h = next[h]) {
+                        double distanceSquared = distanceSquared(h, x, y);
+                        if (distanceSquared <= maxSquared) {
+                            insertNearest(h, distanceSquared, k);
+                        }
+                    }
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public int getResultHandle(int index) {
+        return results[index];
+    }
+
+    public T getResult(int index) {
+        return get(results[index]);
+    }
+
+    // ============ ВНУТРЕННЕЕ ============
+
+    private int cellX(double x) {
+        return Math.max(0, Math.min(cellsX - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int cellY(double y) {
+        return Math.max(0, Math.min(cellsY - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    private int cellOf(double x, double y) {
+        return cellY(y) * cellsX + cellX(x);
+    }
+
+    private double distanceSquared(int handle, double x, double y) {
+        double dx = xs[handle] - x;
+        double dy = ys[handle] - y;
+        return dx * dx + dy * dy;
+    }
+
+    private void link(int handle, int cell) {
+        cells[handle] = cell;
+        prev[handle] = NONE;
+        next[handle] = cellHeads[cell];
+        if (cellHeads[cell] != NONE) {
+            prev[cellHeads[cell]] = handle;
+        }
+        cellHeads[cell] = handle;
+    }
+
+    private void unlink(int handle) {
+        int cell = cells[handle];
+        if (prev[handle] != NONE) {
+            next[prev[handle]] = next[handle];
+        } else {
+            cellHeads[cell] = next[handle];
+        }
+        if (next[handle] != NONE) {
+            prev[next[handle]] = prev[handle];
+        }
+    }
+
+    private void addResult(int handle, double distanceSquared) {
+        if (resultCount == results.length) {
+            results = Arrays.copyOf(results, resultCount * 2);
+            resultDistances = Arrays.copyOf(resultDistances, resultCount * 2);
+        }
+        results[resultCount] = handle;
+        resultDistances[resultCount] = distanceSquared;
+        resultCount++;
+    }
+
+    // Вставка в отсортированные k лучших
+    private void insertNearest(int handle, double distanceSquared, int k) {
+        if (resultCount == k) {
+            if (distanceSquared >= resultDistances[k - 1]) return;
+            resultCount--;
+        }
+        addResult(handle, distanceSquared);
+        int i = resultCount - 1;
+        while (i > 0 && resultDistances[i - 1] > distanceSquared) {
+            results[i] = results[i - 1];
+            resultDistances[i] = resultDistances[i - 1];
+            i--;
+        }
+        results[i] = handle;
+        resultDistances[i] = distanceSquared;
+    }
+
+    private void grow() {
+        int capacity = entities.length * 2;
+        entities = Arrays.copyOf(entities, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+}
@@ -1,52 +1,210 @@
-import java.util.Random;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 public class StructureGenerator {
-    private Random random;
-    private boolean houseGenerated = false;
-    private int houseX, houseY;
+    private static final int HOUSE_AREA_SIZE = 7;      // Дом 5x5 с запасом в тайл
+    private static final int HOUSE_SEARCH_RADIUS = 20; // Радиус поиска места для дома
+    private static final int POISSON_CANDIDATES = 20;  // Кандидатов вокруг точки (алгоритм Бридсона)
+    private static final int SITE_MARGIN = 1;          // Свободная полоса вокруг постройки
     
-    public StructureGenerator() {
-        random = new Random();
+    private final StructureRegistry registry = new StructureRegistry();
+    
+    // Точки расстановки по миру, еще не проверенные на местности (по ключу чанка).
+    // Точку можно проверить, когда вокруг нее сгенерированы все чанки
+    private final Map<Long, List<Point>> pendingSites = new HashMap<>();
+    private long worldSeed;
+    private int checkedChunkCount = -1;
+    
+    // Основной метод для генерации структур на карте: дом рядом с игроком
+    // и постройки, расставленные по всему миру
+    public synchronized void generateStructures(ChunkedWorld world, long worldSeed, int playerX, int playerY) {
+        if (registry.findNearest(StructureTemplate.TYPE_HOUSE, playerX, playerY, HOUSE_SEARCH_RADIUS * 2) == null) {
+            HashRandom random = new HashRandom(HashRandom.hash(worldSeed, playerX, playerY, HashRandom.SALT_STRUCTURES));
+            generateHouseNearPlayer(world, random, playerX, playerY);
+        }
+        planWorld(world, worldSeed);
     }
     
-    // Основной метод для генерации структур на карте
-    public void generateStructures(char[][] map, long worldSeed, int playerX, int playerY) {
-        random.setSeed(worldSeed);
+    // ============ РАССТАНОВКА ПО МИРУ ============
+    
+    // Расставляет точки построек по миру выборкой Пуассона (минимальное расстояние
+    // между точками) и сразу ставит те, что попали в уже сгенерированные чанки.
+    // Точки зависят только от сида, поэтому хост и клиенты получают одинаковые постройки
+    public synchronized void planWorld(ChunkedWorld world, long worldSeed) {
+        long startTime = System.nanoTime();
+        this.worldSeed = worldSeed;
+        pendingSites.clear();
+        checkedChunkCount = -1;
         
-        // Генерируем только один дом рядом с игроком
-        if (!houseGenerated) {
-            generateHouseNearPlayer(map, playerX, playerY);
-            houseGenerated = true;
+        List<Point> sites = samplePoisson(world.getWidth(), world.getHeight(), worldSeed);
+        for (Point site : sites) {
+            long key = WorldChunk.key(site.x / WorldChunk.SIZE, site.y / WorldChunk.SIZE);
+            pendingSites.computeIfAbsent(key, k -> new ArrayList<>()).add(site);
         }
         
-        System.out.println("🏠 Сгенерирован 1 дом рядом с игроком");
+        int placed = placePendingSites(world);
+        System.out.println("🏘️ Точек для построек: " + sites.size() + ", поставлено сразу: " + placed +
+                         " (" + (System.nanoTime() - startTime) / 1_000_000 + " мс)");
     }
     
-    private void generateHouseNearPlayer(char[][] map, int playerX, int playerY) {
-        int attempts = 0;
-        int maxAttempts = 50;
+    // Ставит постройки в точках, вокруг которых мир уже сгенерирован.
+    // Вызывается каждый тик, но работает только когда появились новые чанки
+    public synchronized int placePendingSites(ChunkedWorld world) {
+        int generatedChunks = world.getGeneratedChunkCount();
+        if (generatedChunks == checkedChunkCount || pendingSites.isEmpty()) {
+            return 0;
+        }
+        checkedChunkCount = generatedChunks;
         
-        // Пытаемся найти место для дома в радиусе 10-20 тайлов от игрока
-        while (attempts < maxAttempts) {
-            // Случайное направление и расстояние от игрока
-            double angle = random.nextDouble() * 2 * Math.PI;
-            int distance = 10 + random.nextInt(15); // 10-25 тайлов от игрока
-            
-            int houseX = playerX + (int)(Math.cos(angle) * distance);
-            int houseY = playerY + (int)(Math.sin(angle) * distance);
+        int placed = 0;
+        Iterator<List<Point>> chunkIterator = pendingSites.values().iterator();
+        while (chunkIterator.hasNext()) {
+            List<Point> sites = chunkIterator.next();
+            Iterator<Point> siteIterator = sites.iterator();
+            while (siteIterator.hasNext()) {
+                Point site = siteIterator.next();
+                StructureTemplate template = StructureTemplate.pick(
+                    HashRandom.unit(worldSeed, site.x, site.y, HashRandom.SALT_STRUCTURES));
+                int originX = site.x - template.getWidth() / 2;
+                int originY = site.y - template.getHeight() / 2;
+                if (!isAreaGenerated(world, originX - SITE_MARGIN, originY - SITE_MARGIN,
+                                     template.getWidth() + SITE_MARGIN * 2, template.getHeight() + SITE_MARGIN * 2)) {
+                    continue;
+                }
+                
+                // Точка проверяется один раз: неподходящая местность - точка пропускается
+                siteIterator.remove();
+                if (world.getTerrainIndex().isAll(template.getRequiredClass(),
+                        originX - SITE_MARGIN, originY - SITE_MARGIN,
+                        template.getWidth() + SITE_MARGIN * 2, template.getHeight() + SITE_MARGIN * 2)) {
+                    template.stamp(world, originX, originY);
+                    registry.add(new StructureInstance(template.getType(), originX, originY));
+                    placed++;
+                }
+            }
+            if (sites.isEmpty()) {
+                chunkIterator.remove();
+            }
+        }
+        return placed;
+    }
+    
+    private boolean isAreaGenerated(ChunkedWorld world, int x, int y, int width, int height) {
+        int minChunkX = Math.max(0, x) / WorldChunk.SIZE;
+        int minChunkY = Math.max(0, y) / WorldChunk.SIZE;
+        int maxChunkX = Math.min(world.getWidth() - 1, x + width - 1) / WorldChunk.SIZE;
+        int maxChunkY = Math.min(world.getHeight() - 1, y + height - 1) / WorldChunk.SIZE;
+        for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                if (world.getChunkIfGenerated(chunkX, chunkY) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    // Выборка Пуассона (алгоритм Бридсона): точки не ближе STRUCTURE_MIN_DISTANCE
+    // друг к другу, сетка с ячейкой r/sqrt(2) хранит не больше одной точки,
+    // поэтому проверка соседей - константа, а вся выборка - O(число точек)
+    private List<Point> samplePoisson(int width, int height, long seed) {
+        int minDistance = GameConstants.STRUCTURE_MIN_DISTANCE;
+        int border = GameConstants.STRUCTURE_BORDER;
+        double cellSize = minDistance / Math.sqrt(2);
+        int gridWidth = (int) Math.ceil(width / cellSize);
+        int gridHeight = (int) Math.ceil(height / cellSize);
+        int[] grid = new int[gridWidth * gridHeight];
+        Arrays.fill(grid, -1);
+        
+        List<Point> points = new ArrayList<>();
+        List<Integer> active = new ArrayList<>();
+        if (width <= border * 2 || height <= border * 2) {
+            return points;
+        }
+        
+        HashRandom random = new HashRandom(HashRandom.hash(seed, 0, 0, HashRandom.SALT_STRUCTURES));
+        Point first = new Point(border + random.nextInt(width - border * 2),
+                                border + random.nextInt(height - border * 2));
+        points.add(first);
+        active.add(0);
+        grid[(int) (first.y / cellSize) * gridWidth + (int) (first.x / cellSize)] = 0;
+        
+        while (!active.isEmpty()) {
+            int activeIndex = random.nextInt(active.size());
+            Point origin = points.get(active.get(activeIndex));
+            boolean found = false;
             
-            // Проверяем границы карты
-            houseX = Math.max(10, Math.min(houseX, GameConstants.MAP_WIDTH - 10));
-            houseY = Math.max(10, Math.min(houseY, GameConstants.MAP_HEIGHT - 10));
+            for (int attempt = 0; attempt < POISSON_CANDIDATES && !found; attempt++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double distance = minDistance * (1 + random.nextDouble());
+                int x = origin.x + (int) (StrictMath.cos(angle) * distance);
+                int y = origin.y + (int) (StrictMath.sin(angle) * distance);
+                if (x < border || y < border || x >= width - border || y >= height - border) {
+                    continue;
+                }
+                
+                int cellX = (int) (x / cellSize);
+                int cellY = (int) (y / cellSize);
+                if (isFarFromNeighbors(points, grid, gridWidth, gridHeight, cellX, cellY, x, y, minDistance)) {
+                    grid[cellY * gridWidth + cellX] = points.size();
+                    active.add(points.size());
+                    points.add(new Point(x, y));
+                    found = true;
+                }
+            }
             
-            if (isValidHouseLocation(map, houseX, houseY)) {
-                this.houseX = houseX;
-                this.houseY = houseY;
-                generateHouse(map, houseX, houseY);
-                System.out.println("✅ Дом построен рядом с игроком в позиции: " + houseX + ", " + houseY);
-                return;
+            if (!found) {
+                // Удаление перестановкой с последним элементом
+                active.set(activeIndex, active.get(active.size() - 1));
+                active.remove(active.size() - 1);
+            }
+        }
+        return points;
+    }
+    
+    private boolean isFarFromNeighbors(List<Point> points, int[] grid, int gridWidth, int gridHeight,
+                                       int cellX, int cellY, int x, int y, int minDistance) {
+        for (int ny = Math.max(0, cellY - 2); ny <= Math.min(gridHeight - 1, cellY + 2); ny++) {
+            for (int nx = Math.max(0, cellX - 2); nx <= Math.min(gridWidth - 1, cellX + 2); nx++) {
+                int index = grid[ny * gridWidth + nx];
+                if (index < 0) continue;
+                Point other = points.get(index);
+                long dx = other.x - x;
+                long dy = other.y - y;
+                if (dx * dx + dy * dy < (long) minDistance * minDistance) {
+                    return false;
+                }
             }
-            attempts++;
+        }
+        return true;
+    }
+    
+    // ============ ДОМ РЯДОМ С ИГРОКОМ ============
+    
+    private void generateHouseNearPlayer(ChunkedWorld world, HashRandom random, int playerX, int playerY) {
+        // Случайная точка в 10-25 тайлах от игрока, от нее - ближайшее
+        // свободное место по индексу местности (без слепых повторных попыток)
+        double angle = random.nextDouble() * 2 * Math.PI;
+        int distance = 10 + random.nextInt(15);
+        
+        int targetX = playerX + (int)(StrictMath.cos(angle) * distance);
+        int targetY = playerY + (int)(StrictMath.sin(angle) * distance);
+        
+        // Проверяем границы карты
+        targetX = Math.max(10, Math.min(targetX, world.getWidth() - 10));
+        targetY = Math.max(10, Math.min(targetY, world.getHeight() - 10));
+        
+        Point site = world.getTerrainIndex().findNearest(TerrainIndex.CLASS_GRASS, targetX, targetY,
+                                                         HOUSE_AREA_SIZE, HOUSE_SEARCH_RADIUS);
+        if (site != null) {
+            placeHouse(world, site.x, site.y);
+            System.out.println("✅ Дом построен рядом с игроком в позиции: " + site.x + ", " + site.y);
+            return;
         }
         
         // Если не нашли идеальное место, строим дом на фиксированном расстоянии
@@ -58,135 +216,82 @@ public class StructureGenerator {
             int x = playerX + dir[0];
             int y = playerY + dir[1];
             
-            x = Math.max(10, Math.min(x, GameConstants.MAP_WIDTH - 10));
-            y = Math.max(10, Math.min(y, GameConstants.MAP_HEIGHT - 10));
+            x = Math.max(10, Math.min(x, world.getWidth() - 10));
+            y = Math.max(10, Math.min(y, world.getHeight() - 10));
             
-            if (isValidHouseLocation(map, x, y)) {
-                this.houseX = x;
-                this.houseY = y;
-                generateHouse(map, x, y);
+            if (isValidHouseLocation(world, x, y)) {
+                placeHouse(world, x, y);
                 System.out.println("✅ Дом построен вплотную к игроку: " + x + ", " + y);
                 return;
             }
         }
         
         // Последняя попытка - прямо рядом с игроком
-        houseX = playerX + 3;
-        houseY = playerY + 3;
-        houseX = Math.max(10, Math.min(houseX, GameConstants.MAP_WIDTH - 10));
-        houseY = Math.max(10, Math.min(houseY, GameConstants.MAP_HEIGHT - 10));
+        int houseX = Math.max(10, Math.min(playerX + 3, world.getWidth() - 10));
+        int houseY = Math.max(10, Math.min(playerY + 3, world.getHeight() - 10));
         
         // Принудительно очищаем область для дома
-        clearAreaForHouse(map, houseX, houseY);
-        generateHouse(map, houseX, houseY);
+        clearAreaForHouse(world, houseX, houseY);
+        placeHouse(world, houseX, houseY);
         System.out.println("⚠️ Дом построен принудительно: " + houseX + ", " + houseY);
     }
     
-    private void clearAreaForHouse(char[][] map, int x, int y) {
+    // Дом 5x5 по центру проверенной области 7x7
+    private void placeHouse(ChunkedWorld world, int centerX, int centerY) {
+        StructureTemplate house = StructureTemplate.HOUSE;
+        int originX = centerX - house.getWidth() / 2;
+        int originY = centerY - house.getHeight() / 2;
+        house.stamp(world, originX, originY);
+        registry.add(new StructureInstance(house.getType(), originX, originY));
+    }
+    
+    private void clearAreaForHouse(ChunkedWorld world, int x, int y) {
         // Очищаем область 7x7 для дома
-        for (int houseY = y - 3; houseY <= y + 3; houseY++) {
-            for (int houseX = x - 3; houseX <= x + 3; houseX++) {
-                if (houseX >= 0 && houseX < GameConstants.MAP_WIDTH && 
-                    houseY >= 0 && houseY < GameConstants.MAP_HEIGHT) {
-                    map[houseY][houseX] = GameConstants.GRASS;
-                }
-            }
-        }
+        byte[] grass = new byte[HOUSE_AREA_SIZE * HOUSE_AREA_SIZE];
+        Arrays.fill(grass, TilePalette.ID_GRASS);
+        int half = HOUSE_AREA_SIZE / 2;
+        world.writeTiles(x - half, y - half, HOUSE_AREA_SIZE, HOUSE_AREA_SIZE, grass);
     }
     
-    private boolean isValidHouseLocation(char[][] map, int startX, int startY) {
-        // Проверяем, что область 7x7 свободна (с запасом вокруг дома)
-        for (int y = startY - 3; y <= startY + 3; y++) {
-            for (int x = startX - 3; x <= startX + 3; x++) {
-                if (x < 0 || x >= GameConstants.MAP_WIDTH || y < 0 || y >= GameConstants.MAP_HEIGHT) {
-                    return false;
-                }
-                // Дом можно строить только на траве
-                if (map[y][x] != GameConstants.GRASS) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    private boolean isValidHouseLocation(ChunkedWorld world, int centerX, int centerY) {
+        // Область 7x7 (с запасом вокруг дома) должна быть целиком травой
+        int half = HOUSE_AREA_SIZE / 2;
+        return world.getTerrainIndex().isAll(TerrainIndex.CLASS_GRASS, centerX - half, centerY - half,
+                                             HOUSE_AREA_SIZE, HOUSE_AREA_SIZE);
     }
-    public boolean isHouseGenerated() {
-    return houseGenerated;
-}
-
-public void setHouseGenerated(boolean houseGenerated) {
-    this.houseGenerated = houseGenerated;
-}
-
-public void setHousePosition(int x, int y) {
-    this.houseX = x;
-    this.houseY = y;
-}
-    // Генерация дома 5x5 из камня с деревянным полом
-    private void generateHouse(char[][] map, int startX, int startY) {
-        // Фундамент и пол из деревянных досок
-        for (int y = startY; y < startY + 5; y++) {
-            for (int x = startX; x < startX + 5; x++) {
-                if (y >= 0 && y < GameConstants.MAP_HEIGHT && x >= 0 && x < GameConstants.MAP_WIDTH) {
-                    map[y][x] = GameConstants.WOOD_PLANK;
-                }
-            }
-        }
-        
-        // Стены из камня (только по периметру)
-        for (int y = startY; y < startY + 5; y++) {
-            for (int x = startX; x < startX + 5; x++) {
-                if (y >= 0 && y < GameConstants.MAP_HEIGHT && x >= 0 && x < GameConstants.MAP_WIDTH) {
-                    // Стены только по краям (кроме углов для лучшего вида)
-                    boolean isWall = (y == startY || y == startY + 4) && (x >= startX && x <= startX + 4) ||
-                                    (x == startX || x == startX + 4) && (y >= startY && y <= startY + 4);
-                    
-                    if (isWall) {
-                        map[y][x] = GameConstants.STONE;
-                    }
-                }
-            }
-        }
-        
-        // Дверь (в центре нижней стены)
-        if (startY + 4 < GameConstants.MAP_HEIGHT && startX + 2 < GameConstants.MAP_WIDTH) {
-            map[startY + 4][startX + 2] = GameConstants.WOOD_PLANK;
-        }
-        
-        // Окна (в боковых стенах)
-        if (startY + 1 < GameConstants.MAP_HEIGHT && startX < GameConstants.MAP_WIDTH) {
-            map[startY + 1][startX] = GameConstants.GLASS;
-        }
-        if (startY + 3 < GameConstants.MAP_HEIGHT && startX < GameConstants.MAP_WIDTH) {
-            map[startY + 3][startX] = GameConstants.GLASS;
-        }
-        if (startY + 1 < GameConstants.MAP_HEIGHT && startX + 4 < GameConstants.MAP_WIDTH) {
-            map[startY + 1][startX + 4] = GameConstants.GLASS;
-        }
-        if (startY + 3 < GameConstants.MAP_HEIGHT && startX + 4 < GameConstants.MAP_WIDTH) {
-            map[startY + 3][startX + 4] = GameConstants.GLASS;
-        }
-        
-        // Крыша (только над внутренним пространством, не над стенами)
-        for (int y = startY + 1; y < startY + 4; y++) {
-            for (int x = startX + 1; x < startX + 4; x++) {
-                if (y >= 0 && y < GameConstants.MAP_HEIGHT && x >= 0 && x < GameConstants.MAP_WIDTH) {
-                    // Помечаем внутренние тайлы как имеющие крышу
-                    map[y][x] = GameConstants.ROOFED;
-                }
-            }
+    
+    // ============ РЕЕСТР ============
+    
+    public StructureRegistry getRegistry() {
+        return registry;
+    }
+    
+    // Постройки из сохранения: тайлы уже на карте, восстанавливаем только реестр
+    public synchronized void restore(ChunkedWorld world, long worldSeed, List<StructureInstance> structures) {
+        reset();
+        if (structures != null) {
+            registry.addAll(structures);
         }
+        planWorld(world, worldSeed);
     }
     
-    // Метод для получения позиции дома (может пригодиться)
-    public int[] getHousePosition() {
-        return new int[]{houseX, houseY};
+    // Постройки, полученные от хоста: ставим те, которых у нас еще нет
+    public synchronized void applyRemoteStructures(ChunkedWorld world, List<StructureInstance> structures) {
+        for (StructureInstance structure : structures) {
+            StructureTemplate template = structure.getTemplate();
+            if (template == null || registry.contains(structure.getType(), structure.getX(), structure.getY())) {
+                continue;
+            }
+            template.stamp(world, structure.getX(), structure.getY());
+            registry.add(structure);
+        }
     }
     
     // Метод для сброса состояния (при регенерации мира)
-    public void reset() {
-        houseGenerated = false;
-        houseX = 0;
-        houseY = 0;
+    public synchronized void reset() {
+        registry.clear();
+        pendingSites.clear();
+        checkedChunkCount = -1;
     }
     
     // Метод для получения типа структуры в указанной позиции
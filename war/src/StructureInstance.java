@@ -0,0 +1,24 @@
+import java.io.Serializable;
+
+// Постройка, стоящая на карте: тип шаблона и левый верхний угол
+public class StructureInstance implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final int type;
+    private final int x;
+    private final int y;
+    
+    public StructureInstance(int type, int x, int y) {
+        this.type = type;
+        this.x = x;
+        this.y = y;
+    }
+    
+    public StructureTemplate getTemplate() {
+        return StructureTemplate.byType(type);
+    }
+    
+    public int getType() { return type; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+}
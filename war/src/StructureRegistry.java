@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Реестр построек с разбиением по чанкам: сохранение и сетевая синхронизация
+// перебирают список целиком, поиск рядом с точкой смотрит только соседние чанки
+public class StructureRegistry {
+    private final List<StructureInstance> structures = new ArrayList<>();
+    private final Map<Long, List<StructureInstance>> byChunk = new HashMap<>();
+    
+    public synchronized void add(StructureInstance structure) {
+        structures.add(structure);
+        long key = WorldChunk.key(Math.floorDiv(structure.getX(), WorldChunk.SIZE),
+                                  Math.floorDiv(structure.getY(), WorldChunk.SIZE));
+        byChunk.computeIfAbsent(key, k -> new ArrayList<>()).add(structure);
+    }
+    
+    public synchronized void addAll(List<StructureInstance> list) {
+        for (StructureInstance structure : list) {
+            add(structure);
+        }
+    }
+    
+    public synchronized List<StructureInstance> getAll() {
+        return new ArrayList<>(structures);
+    }
+    
+    public synchronized List<StructureInstance> getInChunk(int chunkX, int chunkY) {
+        List<StructureInstance> list = byChunk.get(WorldChunk.key(chunkX, chunkY));
+        return list != null ? new ArrayList<>(list) : Collections.emptyList();
+    }
+    
+    // Ближайшая постройка типа в радиусе (в тайлах) или null
+    public synchronized StructureInstance findNearest(int type, int x, int y, int radius) {
+        StructureInstance best = null;
+        long bestDistance = Long.MAX_VALUE;
+        int minChunkX = Math.floorDiv(x - radius, WorldChunk.SIZE);
+        int maxChunkX = Math.floorDiv(x + radius, WorldChunk.SIZE);
+        int minChunkY = Math.floorDiv(y - radius, WorldChunk.SIZE);
+        int maxChunkY = Math.floorDiv(y + radius, WorldChunk.SIZE);
+        for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                List<StructureInstance> list = byChunk.get(WorldChunk.key(chunkX, chunkY));
+                if (list == null) continue;
+                for (StructureInstance structure : list) {
+                    if (structure.getType() != type) continue;
+                    long dx = structure.getX() - x;
+                    long dy = structure.getY() - y;
+                    long distance = dx * dx + dy * dy;
+                    if (distance <= (long) radius * radius && distance < bestDistance) {
+                        bestDistance = distance;
+                        best = structure;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    public synchronized boolean contains(int type, int x, int y) {
+        for (StructureInstance structure : getInChunk(Math.floorDiv(x, WorldChunk.SIZE), Math.floorDiv(y, WorldChunk.SIZE))) {
+            if (structure.getType() == type && structure.getX() == x && structure.getY() == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public synchronized int size() {
+        return structures.size();
+    }
+    
+    public synchronized void clear() {
+        structures.clear();
+        byChunk.clear();
+    }
+}
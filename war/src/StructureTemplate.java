@@ -0,0 +1,91 @@
+// Шаблон постройки: готовый блок тайлов (идентификаторы палитры),
+// который переносится на карту построчным копированием массивов
+public class StructureTemplate {
+    public static final int TYPE_HOUSE = 0;
+    public static final int TYPE_WELL = 1;
+    public static final int TYPE_RUINS = 2;
+    
+    // Дом 5x5: каменные стены, окна по бокам, дверь снизу, крыша над комнатой
+    public static final StructureTemplate HOUSE = new StructureTemplate(TYPE_HOUSE, "Дом", 1, TerrainIndex.CLASS_GRASS, new String[] {
+        "SSSSS",
+        "GRRRG",
+        "SRRRS",
+        "GRRRG",
+        "SSPSS"
+    });
+    
+    // Колодец 3x3
+    public static final StructureTemplate WELL = new StructureTemplate(TYPE_WELL, "Колодец", 1, TerrainIndex.CLASS_GRASS, new String[] {
+        "SSS",
+        "S~S",
+        "SSS"
+    });
+    
+    // Развалины: обломки стен на утоптанной земле, могут стоять и в лесу
+    public static final StructureTemplate RUINS = new StructureTemplate(TYPE_RUINS, "Развалины", 2, TerrainIndex.CLASS_WALKABLE, new String[] {
+        "SS#S#",
+        "S####",
+        "####S",
+        "#S#SS"
+    });
+    
+    private static final StructureTemplate[] BY_TYPE = {HOUSE, WELL, RUINS};
+    
+    private final int type;
+    private final String name;
+    private final int weight;        // Относительная частота при расстановке по миру
+    private final int requiredClass; // Класс местности под постройкой (TerrainIndex)
+    private final int width;
+    private final int height;
+    private final byte[] tiles;
+    
+    private StructureTemplate(int type, String name, int weight, int requiredClass, String[] rows) {
+        this.type = type;
+        this.name = name;
+        this.weight = weight;
+        this.requiredClass = requiredClass;
+        this.height = rows.length;
+        this.width = rows[0].length();
+        this.tiles = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                tiles[y * width + x] = TilePalette.toId(rows[y].charAt(x));
+            }
+        }
+    }
+    
+    public static StructureTemplate byType(int type) {
+        return type >= 0 && type < BY_TYPE.length ? BY_TYPE[type] : null;
+    }
+    
+    public static StructureTemplate[] all() {
+        return BY_TYPE.clone();
+    }
+    
+    // Выбор шаблона по случайному числу [0, 1) с учетом весов
+    public static StructureTemplate pick(double chance) {
+        int totalWeight = 0;
+        for (StructureTemplate template : BY_TYPE) {
+            totalWeight += template.weight;
+        }
+        double target = chance * totalWeight;
+        for (StructureTemplate template : BY_TYPE) {
+            target -= template.weight;
+            if (target < 0) {
+                return template;
+            }
+        }
+        return BY_TYPE[BY_TYPE.length - 1];
+    }
+    
+    // Перенос шаблона на карту (левый верхний угол в x, y)
+    public void stamp(ChunkedWorld world, int x, int y) {
+        world.writeTiles(x, y, width, height, tiles);
+    }
+    
+    public int getType() { return type; }
+    public String getName() { return name; }
+    public int getRequiredClass() { return requiredClass; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+}
@@ -0,0 +1,240 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Кэш отрисованной местности: каждый чанк растеризуется один раз в
+// совместимое с экраном изображение (вместе с крышами), кадр - это
+// несколько копирований таких изображений. Изображение чанка
+// перерисовывается, только когда меняется ревизия чанка.
+//
+// Кэш работает в потоке рисования с живым миром: он берет только уже
+// сгенерированные чанки (генерация - дело симуляции), а тайлы, которые
+// симуляция меняет во время растеризации, попадут в кадр по новой ревизии.
+// Ревизия volatile и растет после записи тайлов, поэтому увиденная ревизия
+// гарантирует увиденные тайлы
+public class TerrainChunkCache {
+    private static final int TILE = GameConstants.TILE_SIZE;
+    private static final int CHUNK_PIXELS = WorldChunk.SIZE * TILE;
+    private static final Composite ROOF_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.6f);
+    private static final Font SYMBOL_FONT = new Font("Monospaced", Font.BOLD, TILE - 10);
+    private static final Color GRASS_COLOR = new Color(34, 139, 34);
+    private static final Color TREE_COLOR = new Color(101, 67, 33);
+    private static final Color WATER_COLOR = new Color(30, 144, 255);
+    private static final Color STONE_COLOR = new Color(120, 120, 120);
+    private static final Color WOOD_PLANK_COLOR = new Color(160, 120, 80);
+    private static final Color GLASS_COLOR = new Color(200, 220, 255, 150);
+    private static final Color ROOF_FALLBACK_COLOR = new Color(80, 80, 80);
+
+    // Записей немного (несколько экранов чанков), поэтому вместо карты -
+    // массив с линейным поиском: без упаковки ключей и узлов на кадр.
+    // Давно не использованный чанк - запись с наименьшим lastUsed
+    private final CachedChunk[] entries;
+    private int size = 0;
+    private long frame = 0;
+    private int renderedChunks = 0;
+
+    public TerrainChunkCache(int capacity) {
+        this.entries = new CachedChunk[capacity];
+    }
+
+    // Добавляет в слой местность области viewWidth x viewHeight пикселей,
+    // левый верхний угол которой находится в пикселе мира (cameraPixelX, cameraPixelY)
+    public void queue(RenderLayer layer, GraphicsConfiguration config, ChunkedWorld world,
+                      int cameraPixelX, int cameraPixelY, int viewWidth, int viewHeight) {
+        frame++;
+
+        int firstChunkX = Math.floorDiv(cameraPixelX, CHUNK_PIXELS);
+        int firstChunkY = Math.floorDiv(cameraPixelY, CHUNK_PIXELS);
+        int lastChunkX = Math.floorDiv(cameraPixelX + viewWidth - 1, CHUNK_PIXELS);
+        int lastChunkY = Math.floorDiv(cameraPixelY + viewHeight - 1, CHUNK_PIXELS);
+
+        for (int chunkY = firstChunkY; chunkY <= lastChunkY; chunkY++) {
+            for (int chunkX = firstChunkX; chunkX <= lastChunkX; chunkX++) {
+                if (!world.isChunkInside(chunkX, chunkY)) continue;
+
+                // Копируем только видимую часть чанка - без смены области отсечения
+                int screenX = chunkX * CHUNK_PIXELS - cameraPixelX;
+                int screenY = chunkY * CHUNK_PIXELS - cameraPixelY;
+                int left = Math.max(screenX, 0);
+                int top = Math.max(screenY, 0);
+                int right = Math.min(screenX + CHUNK_PIXELS, viewWidth);
+                int bottom = Math.min(screenY + CHUNK_PIXELS, viewHeight);
+
+                // Еще не сгенерированный чанк закрашивается фоном до шага,
+                // который его догенерирует
+                WorldChunk chunk = world.getChunkIfGenerated(chunkX, chunkY);
+                if (chunk == null) {
+                    layer.fillRect(0, Color.BLACK, false, left, top, right - left, bottom - top);
+                    continue;
+                }
+                Image image = getImage(world, chunk, config);
+                layer.imageRegion(0, image, left, top, left - screenX, top - screenY, right - left, bottom - top);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            entries[i] = null;
+        }
+        size = 0;
+    }
+
+    // Сколько раз чанки растеризовались (для замеров)
+    public int getRenderedChunkCount() {
+        return renderedChunks;
+    }
+
+    private Image getImage(ChunkedWorld world, WorldChunk chunk, GraphicsConfiguration config) {
+        CachedChunk cached = find(chunk.getKey());
+        if (cached == null) {
+            cached = takeEntry(chunk.getKey(), config);
+        } else if (cached.chunk == chunk && cached.revision == chunk.getRevision()) {
+            cached.lastUsed = frame;
+            return cached.image;
+        }
+        cached.lastUsed = frame;
+
+        // Ревизия читается до отрисовки: если чанк изменится во время нее,
+        // на следующем кадре изображение перерисуется
+        cached.chunk = chunk;
+        cached.revision = chunk.getRevision();
+        renderChunk(world, chunk, cached.image);
+        renderedChunks++;
+        return cached.image;
+    }
+
+    private CachedChunk find(long key) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i].key == key) return entries[i];
+        }
+        return null;
+    }
+
+    // Новая запись или запись давно не показанного чанка, если кэш полон
+    private CachedChunk takeEntry(long key, GraphicsConfiguration config) {
+        if (size < entries.length) {
+            BufferedImage image = config != null
+                ? config.createCompatibleImage(CHUNK_PIXELS, CHUNK_PIXELS, Transparency.OPAQUE)
+                : new BufferedImage(CHUNK_PIXELS, CHUNK_PIXELS, BufferedImage.TYPE_INT_RGB);
+            CachedChunk created = new CachedChunk(image);
+            created.key = key;
+            entries[size++] = created;
+            return created;
+        }
+
+        CachedChunk eldest = entries[0];
+        for (int i = 1; i < size; i++) {
+            if (entries[i].lastUsed < eldest.lastUsed) eldest = entries[i];
+        }
+        eldest.key = key;
+        eldest.chunk = null;
+        return eldest;
+    }
+
+    private void renderChunk(ChunkedWorld world, WorldChunk chunk, BufferedImage image) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, CHUNK_PIXELS, CHUNK_PIXELS);
+
+        int baseX = chunk.getChunkX() * WorldChunk.SIZE;
+        int baseY = chunk.getChunkY() * WorldChunk.SIZE;
+        for (int localY = 0; localY < WorldChunk.SIZE; localY++) {
+            for (int localX = 0; localX < WorldChunk.SIZE; localX++) {
+                // Последние чанки могут выходить за край мира
+                if (!world.isInside(baseX + localX, baseY + localY)) continue;
+
+                char terrain = chunk.getTile(localX, localY);
+                int x = localX * TILE;
+                int y = localY * TILE;
+                if (terrain == GameConstants.ROOFED) {
+                    drawRoof(g2d, x, y);
+                } else {
+                    drawTerrain(g2d, x, y, terrain);
+                }
+            }
+        }
+        g2d.dispose();
+    }
+
+    private void drawRoof(Graphics2D g2d, int x, int y) {
+        Composite oldComposite = g2d.getComposite();
+        // Рисуем крышу с полупрозрачностью для видимости интерьера
+        g2d.setComposite(ROOF_COMPOSITE);
+        try {
+            TextureManager.getInstance().drawSprite(g2d, TextureManager.SPRITE_ROOF, x, y);
+            g2d.setComposite(oldComposite);
+            return;
+        } catch (Exception e) {
+            System.out.println("Ошибка рисования текстуры крыши: " + e.getMessage());
+        }
+
+        // Запасной вариант - полупрозрачный серый квадрат
+        g2d.setColor(ROOF_FALLBACK_COLOR);
+        g2d.fillRect(x, y, TILE, TILE);
+        g2d.setComposite(oldComposite);
+    }
+
+    private void drawTerrain(Graphics g, int x, int y, char terrain) {
+        int spriteId = GameConstants.getTerrainSprite(terrain);
+
+        if (spriteId != TextureManager.SPRITE_NONE) {
+            try {
+                TextureManager.getInstance().drawSprite(g, spriteId, x, y);
+                return;
+            } catch (Exception e) {
+                System.out.println("Ошибка рисования текстуры " + terrain + ": " + e.getMessage());
+            }
+        }
+
+        Color color = Color.WHITE;
+        switch (terrain) {
+            case GameConstants.GRASS:
+                color = GRASS_COLOR;
+                break;
+            case GameConstants.TREE:
+                color = TREE_COLOR;
+                break;
+            case GameConstants.WATER:
+                color = WATER_COLOR;
+                break;
+            case GameConstants.STONE:
+                color = STONE_COLOR;
+                break;
+            case GameConstants.WOOD_PLANK:
+                color = WOOD_PLANK_COLOR;
+                break;
+            case GameConstants.GLASS:
+                color = GLASS_COLOR;
+                break;
+        }
+
+        drawTerrainSymbol(g, x, y, terrain, color);
+    }
+
+    private void drawTerrainSymbol(Graphics g, int x, int y, char symbol, Color color) {
+        g.setColor(color);
+        g.fillRect(x, y, TILE, TILE);
+
+        g.setColor(color.darker());
+        g.drawRect(x, y, TILE, TILE);
+
+        g.setColor(Color.WHITE);
+        g.setFont(SYMBOL_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int textX = x + (TILE - fm.charWidth(symbol)) / 2;
+        int textY = y + (TILE + fm.getAscent()) / 2 - 2;
+        g.drawString(String.valueOf(symbol), textX, textY);
+    }
+
+    private static class CachedChunk {
+        final BufferedImage image;
+        long key;
+        WorldChunk chunk;
+        int revision;
+        long lastUsed;
+
+        CachedChunk(BufferedImage image) {
+            this.image = image;
+        }
+    }
+}
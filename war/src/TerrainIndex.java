@@ -0,0 +1,182 @@
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Индекс запросов к местности: для каждого чанка хранятся интегральные
+// изображения (суммы по прямоугольникам) по классам тайлов. Вопрос
+// "вся ли область - трава" решается за O(1) на каждый задетый чанк.
+// Учитываются только сгенерированные чанки: запрос не запускает генерацию.
+// Таблица строится при первом запросе к чанку; правка тайлов через
+// ChunkedWorld пересчитывает только строки таблицы от измененной строки
+public class TerrainIndex {
+    public static final int CLASS_GRASS = 0;     // Трава
+    public static final int CLASS_WATER = 1;     // Вода
+    public static final int CLASS_TREE = 2;      // Деревья
+    public static final int CLASS_WALKABLE = 3;  // Проходимые тайлы
+    public static final int CLASS_SPAWNABLE = 4; // Можно появиться: проходимо и не дерево
+    public static final int CLASS_PASTURE = 5;   // Трава на лугу (для кроликов)
+    private static final int CLASS_COUNT = 6;
+
+    private static final int SIZE = WorldChunk.SIZE;
+    private static final int STRIDE = SIZE + 1;
+
+    private final ChunkedWorld world;
+    private final Map<Long, ChunkSums> sums = new ConcurrentHashMap<>();
+
+    public TerrainIndex(ChunkedWorld world) {
+        this.world = world;
+    }
+
+    // ============ ЗАПРОСЫ ============
+
+    // Количество тайлов класса в прямоугольнике (часть за границей мира и
+    // в несгенерированных чанках не считается)
+    public int count(int tileClass, int x, int y, int width, int height) {
+        int minX = Math.max(0, x);
+        int minY = Math.max(0, y);
+        int maxX = Math.min(world.getWidth(), x + width);
+        int maxY = Math.min(world.getHeight(), y + height);
+        if (minX >= maxX || minY >= maxY) return 0;
+
+        int total = 0;
+        for (int chunkY = minY / SIZE; chunkY <= (maxY - 1) / SIZE; chunkY++) {
+            int baseY = chunkY * SIZE;
+            int fromY = Math.max(minY, baseY) - baseY;
+            int toY = Math.min(maxY, baseY + SIZE) - baseY;
+            for (int chunkX = minX / SIZE; chunkX <= (maxX - 1) / SIZE; chunkX++) {
+                int baseX = chunkX * SIZE;
+                int fromX = Math.max(minX, baseX) - baseX;
+                int toX = Math.min(maxX, baseX + SIZE) - baseX;
+                ChunkSums chunkSums = getSums(chunkX, chunkY);
+                if (chunkSums != null) {
+                    total += chunkSums.sum(tileClass, fromX, fromY, toX, toY);
+                }
+            }
+        }
+        return total;
+    }
+
+    // Вся ли область (целиком внутри мира) состоит из тайлов класса
+    public boolean isAll(int tileClass, int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || x + width > world.getWidth() || y + height > world.getHeight()) {
+            return false;
+        }
+        return count(tileClass, x, y, width, height) == width * height;
+    }
+
+    public boolean is(int tileClass, int x, int y) {
+        return isAll(tileClass, x, y, 1, 1);
+    }
+
+    // Ближайшая к (centerX, centerY) точка в радиусе, для которой квадрат
+    // size x size с центром в ней целиком из тайлов класса. Обход идет
+    // кольцами (по Чебышёву) от центра; null, если подходящей точки нет
+    public Point findNearest(int tileClass, int centerX, int centerY, int size, int maxRadius) {
+        int half = size / 2;
+        for (int radius = 0; radius <= maxRadius; radius++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                int y = centerY + dy;
+                // На верхней и нижней строке кольца - все клетки, на остальных - только края
+                int step = (dy == -radius || dy == radius) ? 1 : Math.max(1, radius * 2);
+                for (int dx = -radius; dx <= radius; dx += step) {
+                    int x = centerX + dx;
+                    if (isAll(tileClass, x - half, y - half, size, size)) {
+                        return new Point(x, y);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // ============ ТАБЛИЦЫ ЧАНКОВ ============
+
+    // Таблица чанка или null, если чанк еще не сгенерирован
+    private ChunkSums getSums(int chunkX, int chunkY) {
+        WorldChunk chunk = world.getChunkIfGenerated(chunkX, chunkY);
+        if (chunk == null) return null;
+        long key = chunk.getKey();
+        ChunkSums current = sums.get(key);
+        if (current == null || current.chunk != chunk || current.revision != chunk.getRevision()) {
+            current = new ChunkSums(chunk);
+            sums.put(key, current);
+        }
+        return current;
+    }
+
+    // Тайлы чанка изменены начиная со строки localY; revisionBefore - ревизия
+    // чанка до правки. Строки таблиц выше localY от правки не зависят. Если
+    // таблица отстала еще до правки, она перестроится целиком при запросе
+    void tilesChanged(WorldChunk chunk, int revisionBefore, int localY) {
+        ChunkSums current = sums.get(chunk.getKey());
+        if (current != null && current.chunk == chunk && current.revision == revisionBefore) {
+            current.update(localY);
+        }
+    }
+
+    // Мир больше не используется (новый мир или загрузка)
+    void clear() {
+        sums.clear();
+    }
+
+    // Чанк заменен (загрузка из сохранения) - его таблица больше не нужна
+    void remove(long key) {
+        sums.remove(key);
+    }
+
+    static boolean isWalkable(byte tileId) {
+        return tileId != TilePalette.ID_WATER && tileId != TilePalette.ID_STONE && tileId != TilePalette.ID_GLASS;
+    }
+
+    // Интегральные изображения одного чанка: sums[class][(y)*STRIDE + x] -
+    // количество тайлов класса в прямоугольнике [0, x) x [0, y)
+    private static class ChunkSums {
+        final WorldChunk chunk;
+        int revision;
+        final short[][] tables = new short[CLASS_COUNT][STRIDE * STRIDE];
+
+        ChunkSums(WorldChunk chunk) {
+            this.chunk = chunk;
+            update(0);
+        }
+
+        // Пересчет строк таблиц с fromY до конца чанка; строка fromY
+        // опирается на уже верную строку над ней
+        void update(int fromY) {
+            revision = chunk.getRevision();
+            byte[] tiles = chunk.getTileIds();
+            byte[] flags = chunk.getFlags();
+            int[] row = new int[CLASS_COUNT];
+            for (int y = fromY; y < SIZE; y++) {
+                Arrays.fill(row, 0);
+                for (int x = 0; x < SIZE; x++) {
+                    int index = y * SIZE + x;
+                    byte tileId = tiles[index];
+                    boolean grass = tileId == TilePalette.ID_GRASS;
+                    boolean tree = tileId == TilePalette.ID_TREE;
+                    boolean walkable = isWalkable(tileId);
+
+                    if (grass) row[CLASS_GRASS]++;
+                    if (tileId == TilePalette.ID_WATER) row[CLASS_WATER]++;
+                    if (tree) row[CLASS_TREE]++;
+                    if (walkable) row[CLASS_WALKABLE]++;
+                    if (walkable && !tree) row[CLASS_SPAWNABLE]++;
+                    if (grass && (flags[index] & WorldChunk.FLAG_FOREST) == 0) row[CLASS_PASTURE]++;
+
+                    int cell = (y + 1) * STRIDE + (x + 1);
+                    for (int c = 0; c < CLASS_COUNT; c++) {
+                        tables[c][cell] = (short) (tables[c][cell - STRIDE] + row[c]);
+                    }
+                }
+            }
+        }
+
+        // Сумма по [fromX, toX) x [fromY, toY) в локальных координатах чанка
+        int sum(int tileClass, int fromX, int fromY, int toX, int toY) {
+            short[] table = tables[tileClass];
+            return table[toY * STRIDE + toX] - table[fromY * STRIDE + toX]
+                 - table[toY * STRIDE + fromX] + table[fromY * STRIDE + fromX];
+        }
+    }
+}
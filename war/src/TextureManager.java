@@ -7,21 +7,67 @@ import java.util.Map;
 import java.util.Random;
 
 public class TextureManager {
-    private static TextureManager instance;
+    // Идентификаторы спрайтов атласа (индексы в SPRITE_NAMES)
+    public static final int SPRITE_NONE = -1;
+    public static final int SPRITE_SWORD = 0;
+    public static final int SPRITE_GRASS = 1;
+    public static final int SPRITE_TREE = 2;
+    public static final int SPRITE_WATER = 3;
+    public static final int SPRITE_STONE = 4;
+    public static final int SPRITE_WOOD_PLANK = 5;
+    public static final int SPRITE_GLASS = 6;
+    public static final int SPRITE_ROOF = 7;
+    public static final int SPRITE_PLAYER_DOWN = 8;
+    public static final int SPRITE_PLAYER_UP = 9;
+    public static final int SPRITE_PLAYER_LEFT = 10;
+    public static final int SPRITE_PLAYER_RIGHT = 11;
+    public static final int SPRITE_RABBIT = 12;
+    
+    // Имена текстур в порядке идентификаторов
+    private static final String[] SPRITE_NAMES = {
+        "sword",
+        GameConstants.TEXTURE_GRASS,
+        GameConstants.TEXTURE_TREE,
+        GameConstants.TEXTURE_WATER,
+        GameConstants.TEXTURE_STONE,
+        GameConstants.TEXTURE_WOOD_PLANK,
+        GameConstants.TEXTURE_GLASS,
+        GameConstants.TEXTURE_ROOF,
+        GameConstants.PLAYER_TEXTURE_DOWN,
+        GameConstants.PLAYER_TEXTURE_UP,
+        GameConstants.PLAYER_TEXTURE_LEFT,
+        GameConstants.PLAYER_TEXTURE_RIGHT,
+        "rabbit"
+    };
+    private static final int ATLAS_COLUMNS = 8;
+    private static final int SPRITE_SIZE = GameConstants.TILE_SIZE;
+    
     private Map<String, BufferedImage> textures;
     private Random random;
     
+    // Атлас: все спрайты, уменьшенные/увеличенные до размера тайла, в одном
+    // совместимом с экраном изображении; спрайт рисуется копированием региона
+    private BufferedImage atlas;
+    private final Map<String, Integer> spriteIds = new HashMap<>();
+    
+    // Одна текстура ошибки на все ненайденные имена
+    private BufferedImage errorTexture;
+    
     private TextureManager() {
         textures = new HashMap<>();
         random = new Random();
         loadTextures();
+        buildAtlas();
+    }
+    
+    // Текстуры загружаются при первом обращении из любого потока (загрузчик игры
+    // делает это в фоне); инициализация класса-держателя потокобезопасна
+    private static class Holder {
+        static final TextureManager INSTANCE = new TextureManager();
     }
     
     public static TextureManager getInstance() {
-        if (instance == null) {
-            instance = new TextureManager();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
     
     private void loadTextures() {
@@ -254,11 +300,81 @@ public class TextureManager {
         return texture;
     }
     
+    // ============ АТЛАС ============
+    
+    private void buildAtlas() {
+        int rows = (SPRITE_NAMES.length + ATLAS_COLUMNS - 1) / ATLAS_COLUMNS;
+        int width = ATLAS_COLUMNS * SPRITE_SIZE;
+        int height = rows * SPRITE_SIZE;
+        
+        GraphicsConfiguration config = getScreenConfiguration();
+        atlas = config != null
+            ? config.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+            : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        
+        Graphics2D g2d = atlas.createGraphics();
+        g2d.setComposite(AlphaComposite.Src);
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int id = 0; id < SPRITE_NAMES.length; id++) {
+            BufferedImage texture = getTexture(SPRITE_NAMES[id]);
+            g2d.drawImage(texture, spriteX(id), spriteY(id), SPRITE_SIZE, SPRITE_SIZE, null);
+            spriteIds.put(SPRITE_NAMES[id], id);
+        }
+        g2d.dispose();
+        
+        System.out.println("✅ Атлас текстур собран: " + SPRITE_NAMES.length + " спрайтов, " + width + "x" + height);
+    }
+    
+    private static GraphicsConfiguration getScreenConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+            .getDefaultScreenDevice().getDefaultConfiguration();
+    }
+    
+    private static int spriteX(int spriteId) {
+        return (spriteId % ATLAS_COLUMNS) * SPRITE_SIZE;
+    }
+    
+    private static int spriteY(int spriteId) {
+        return (spriteId / ATLAS_COLUMNS) * SPRITE_SIZE;
+    }
+    
+    // Идентификатор спрайта по имени текстуры или SPRITE_NONE
+    public int getSpriteId(String textureName) {
+        Integer id = textureName != null ? spriteIds.get(textureName) : null;
+        return id != null ? id : SPRITE_NONE;
+    }
+    
+    // Спрайт размером в тайл: копирование региона атласа без масштабирования
+    public void drawSprite(Graphics g, int spriteId, int x, int y) {
+        int sourceX = spriteX(spriteId);
+        int sourceY = spriteY(spriteId);
+        g.drawImage(atlas, x, y, x + SPRITE_SIZE, y + SPRITE_SIZE,
+                    sourceX, sourceY, sourceX + SPRITE_SIZE, sourceY + SPRITE_SIZE, null);
+    }
+    
+    // Спрайт другого размера (иконки инвентаря)
+    public void drawSprite(Graphics g, int spriteId, int x, int y, int size) {
+        int sourceX = spriteX(spriteId);
+        int sourceY = spriteY(spriteId);
+        g.drawImage(atlas, x, y, x + size, y + size,
+                    sourceX, sourceY, sourceX + SPRITE_SIZE, sourceY + SPRITE_SIZE, null);
+    }
+    
+    public BufferedImage getAtlas() {
+        return atlas;
+    }
+    
     public BufferedImage getTexture(String textureName) {
         BufferedImage texture = textures.get(textureName);
         if (texture == null) {
             System.out.println("❌ Текстура не найдена: " + textureName);
-            return createErrorTexture(32, 32);
+            if (errorTexture == null) {
+                errorTexture = createErrorTexture(32, 32);
+            }
+            return errorTexture;
         }
         return texture;
     }
@@ -0,0 +1,51 @@
+public class TilePalette {
+    // Идентификаторы тайлов (индексы в палитре)
+    public static final byte ID_EMPTY = 0;
+    public static final byte ID_GRASS = 1;
+    public static final byte ID_TREE = 2;
+    public static final byte ID_WATER = 3;
+    public static final byte ID_SOIL = 4;
+    public static final byte ID_CAVE_ENTRANCE = 5;
+    public static final byte ID_ENEMY = 6;
+    public static final byte ID_STONE = 7;
+    public static final byte ID_WOOD_PLANK = 8;
+    public static final byte ID_GLASS = 9;
+    public static final byte ID_ROOFED = 10;
+    public static final byte ID_PLAYER = 11;
+    
+    // Символ terrain для каждого идентификатора
+    private static final char[] SYMBOLS = {
+        GameConstants.EMPTY,
+        GameConstants.GRASS,
+        GameConstants.TREE,
+        GameConstants.WATER,
+        GameConstants.SOIL,
+        GameConstants.CAVE_ENTRANCE,
+        GameConstants.ENEMY,
+        GameConstants.STONE,
+        GameConstants.WOOD_PLANK,
+        GameConstants.GLASS,
+        GameConstants.ROOFED,
+        GameConstants.PLAYER
+    };
+    
+    public static final int SIZE = SYMBOLS.length;
+    
+    // Обратная таблица символ -> идентификатор (все символы terrain - ASCII)
+    private static final byte[] IDS = new byte[128];
+    static {
+        for (byte id = 0; id < SYMBOLS.length; id++) {
+            IDS[SYMBOLS[id]] = id;
+        }
+    }
+    
+    private TilePalette() {}
+    
+    public static byte toId(char terrain) {
+        return terrain < IDS.length ? IDS[terrain] : ID_EMPTY;
+    }
+    
+    public static char toSymbol(byte id) {
+        return id >= 0 && id < SYMBOLS.length ? SYMBOLS[id] : GameConstants.EMPTY;
+    }
+}
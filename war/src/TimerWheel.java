@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+// Колесо таймеров: расписание пробуждений сущностей по шагам симуляции.
+// Сущность (число id, например номер кролика) ставится на шаг dueTick и
+// попадает в корзину dueTick % slots; каждый шаг разбирается одна корзина,
+// так что работа шага пропорциональна числу проснувшихся, а не всем
+// сущностям. Записи дальше одного оборота колеса ждут в своей корзине.
+//
+// Корзины - двусвязные списки на массивах, перестановка и отмена O(1);
+// проснувшиеся складываются во внутренний буфер (getDue) без выделений
+public class TimerWheel {
+    private static final int NONE = -1;
+    private static final long UNSCHEDULED = Long.MIN_VALUE;
+
+    private final int[] bucketHeads;
+    private final int mask;
+    private long currentTick = 0;
+
+    // Записи по id
+    private long[] dueTicks = new long[64];
+    private int[] next = new int[64];
+    private int[] prev = new int[64];
+
+    private int[] due = new int[64];
+    private int dueCount = 0;
+
+    // slots округляется вверх до степени двойки
+    public TimerWheel(int slots) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.bucketHeads = new int[size];
+        this.mask = size - 1;
+        Arrays.fill(bucketHeads, NONE);
+        Arrays.fill(dueTicks, UNSCHEDULED);
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    // Будит id на шаге dueTick (не раньше следующего); прежнее расписание отменяется
+    public void schedule(int id, long dueTick) {
+        if (id >= dueTicks.length) {
+            grow(id + 1);
+        }
+        if (dueTicks[id] != UNSCHEDULED) {
+            unlink(id);
+        }
+        long tick = Math.max(dueTick, currentTick + 1);
+        dueTicks[id] = tick;
+
+        int bucket = (int) (tick & mask);
+        prev[id] = NONE;
+        next[id] = bucketHeads[bucket];
+        if (bucketHeads[bucket] != NONE) {
+            prev[bucketHeads[bucket]] = id;
+        }
+        bucketHeads[bucket] = id;
+    }
+
+    public void scheduleAfter(int id, int delayTicks) {
+        schedule(id, currentTick + delayTicks);
+    }
+
+    public void cancel(int id) {
+        if (isScheduled(id)) {
+            unlink(id);
+            dueTicks[id] = UNSCHEDULED;
+        }
+    }
+
+    public boolean isScheduled(int id) {
+        return id < dueTicks.length && dueTicks[id] != UNSCHEDULED;
+    }
+
+    // Снимает расписание со всех, счетчик шагов не сбрасывается
+    public void clear() {
+        Arrays.fill(bucketHeads, NONE);
+        Arrays.fill(dueTicks, UNSCHEDULED);
+        dueCount = 0;
+    }
+
+    // Следующий шаг: возвращает число проснувшихся, их id - getDue.
+    // Проснувшиеся снимаются с расписания и могут сразу поставить себя снова
+    public int advance() {
+        currentTick++;
+        dueCount = 0;
+        int bucket = (int) (currentTick & mask);
+        int id = bucketHeads[bucket];
+        while (id != NONE) {
+            int following = next[id];
+            if (dueTicks[id] == currentTick) {
+                unlink(id);
+                dueTicks[id] = UNSCHEDULED;
+                if (dueCount == due.length) {
+                    due = Arrays.copyOf(due, dueCount * 2);
+                }
+                due[dueCount++] = id;
+            }
+            id = following;
+        }
+        return dueCount;
+    }
+
+    public int getDue(int index) {
+        return due[index];
+    }
+
+    // ============ ВНУТРЕННЕЕ ============
+
+    private void unlink(int id) {
+        int bucket = (int) (dueTicks[id] & mask);
+        if (prev[id] != NONE) {
+            next[prev[id]] = next[id];
+        } else {
+            bucketHeads[bucket] = next[id];
+        }
+        if (next[id] != NONE) {
+            prev[next[id]] = prev[id];
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int oldLength = dueTicks.length;
+        int capacity = Math.max(minCapacity, oldLength * 2);
+        dueTicks = Arrays.copyOf(dueTicks, capacity);
+        Arrays.fill(dueTicks, oldLength, capacity, UNSCHEDULED);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+}
@@ -0,0 +1,39 @@
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Передача состояния от одного писателя одному читателю без блокировок:
+// писатель заполняет свой буфер и меняет его на средний, читатель забирает
+// средний, только если там что-то новое. У каждого всегда свой буфер,
+// поэтому писатель может опережать читателя на сколько угодно шагов, а
+// читатель видит последнее опубликованное целиком
+public class TripleBuffer<T> {
+    private static final int FRESH = 4;
+
+    private final List<T> buffers;
+    // Индекс среднего буфера и флаг FRESH (средний еще не забран)
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;  // Принадлежит писателю
+    private int front = 2; // Принадлежит читателю
+
+    public TripleBuffer(T first, T second, T third) {
+        this.buffers = List.of(first, second, third);
+    }
+
+    // Буфер, который заполняет писатель
+    public T getBack() {
+        return buffers.get(back);
+    }
+
+    // Публикует заполненный буфер; писатель получает следующий
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & 3;
+    }
+
+    // Последний опубликованный буфер; действителен до следующего acquire
+    public T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & 3;
+        }
+        return buffers.get(front);
+    }
+}
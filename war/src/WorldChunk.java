@@ -0,0 +1,100 @@
+public class WorldChunk {
+    public static final int SIZE = GameConstants.CHUNK_SIZE;
+    public static final int AREA = SIZE * SIZE;
+
+    // Биты слоя флагов
+    public static final int FLAG_FOREST = 1;        // Биом: 1 - лес, 0 - луг
+    public static final int FLAG_MODIFIED = 1 << 1; // Тайл изменен после генерации
+
+    private final int chunkX;
+    private final int chunkY;
+
+    // Плоские слои: идентификатор тайла из палитры и упакованные флаги
+    private final byte[] tiles;
+    private final byte[] flags;
+
+    // Счетчик изменений - растет при каждой записи тайла
+    private volatile int revision = 0;
+
+    public WorldChunk(int chunkX, int chunkY) {
+        this(chunkX, chunkY, new byte[AREA], new byte[AREA]);
+    }
+
+    public WorldChunk(int chunkX, int chunkY, byte[] tiles, byte[] flags) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.tiles = tiles;
+        this.flags = flags;
+    }
+
+    // Ключ чанка для хранения в картах
+    public static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int keyY(long key) {
+        return (int) key;
+    }
+
+    // Локальные координаты внутри чанка (0..SIZE-1)
+    public byte getTileId(int localX, int localY) {
+        return tiles[localY * SIZE + localX];
+    }
+
+    public char getTile(int localX, int localY) {
+        return TilePalette.toSymbol(tiles[localY * SIZE + localX]);
+    }
+
+    public void setTileId(int localX, int localY, byte tileId) {
+        int index = localY * SIZE + localX;
+        tiles[index] = tileId;
+        flags[index] |= FLAG_MODIFIED;
+        revision++;
+    }
+
+    public void setTile(int localX, int localY, char tile) {
+        setTileId(localX, localY, TilePalette.toId(tile));
+    }
+
+    // Копирование строки тайлов (шаблоны построек): одно копирование массива
+    // и одно увеличение ревизии на всю строку
+    public void writeRow(int localX, int localY, byte[] source, int sourceOffset, int length) {
+        int index = localY * SIZE + localX;
+        System.arraycopy(source, sourceOffset, tiles, index, length);
+        for (int i = index; i < index + length; i++) {
+            flags[i] |= FLAG_MODIFIED;
+        }
+        revision++;
+    }
+
+    // Запись при генерации: не помечает тайл измененным
+    void setGeneratedTileId(int index, byte tileId) {
+        tiles[index] = tileId;
+    }
+
+    public int getBiome(int localX, int localY) {
+        return flags[localY * SIZE + localX] & FLAG_FOREST;
+    }
+
+    public void setBiome(int localX, int localY, int biome) {
+        int index = localY * SIZE + localX;
+        flags[index] = (byte) (biome != 0 ? flags[index] | FLAG_FOREST : flags[index] & ~FLAG_FOREST);
+    }
+
+    public boolean isModified(int localX, int localY) {
+        return (flags[localY * SIZE + localX] & FLAG_MODIFIED) != 0;
+    }
+
+    public int getChunkX() { return chunkX; }
+    public int getChunkY() { return chunkY; }
+    public long getKey() { return key(chunkX, chunkY); }
+    public int getRevision() { return revision; }
+
+    // Прямой доступ к слоям (для сохранений и быстрых копий)
+    public byte[] getTileIds() { return tiles; }
+    public byte[] getFlags() { return flags; }
+}
@@ -0,0 +1,340 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class WorldGenerator {
+    // Общий пул для параллельной генерации мира
+    static final ForkJoinPool GENERATION_POOL = new ForkJoinPool(GameConstants.GENERATION_PARALLELISM);
+
+    private final long worldSeed;
+    private final int width;
+    private final int height;
+    private final NoiseField noiseField;
+
+    // Маски воды по чанкам (озера и реки пересекают границы чанков,
+    // поэтому их план строится один раз для всего мира). Построенный план
+    // не меняется и читается генерацией чанков без блокировки; waterPlanLock
+    // нужен только чтобы план не строился дважды
+    private volatile Map<Long, long[]> waterPlan;
+    private final Object waterPlanLock = new Object();
+
+    public WorldGenerator(long worldSeed, int width, int height) {
+        this.worldSeed = worldSeed;
+        this.width = width;
+        this.height = height;
+        this.noiseField = new NoiseField(worldSeed);
+    }
+
+    public long getWorldSeed() {
+        return worldSeed;
+    }
+
+    // Генерация одного чанка: биомы, растительность, вода
+    public WorldChunk generateChunk(int chunkX, int chunkY) {
+        WorldChunk chunk = new WorldChunk(chunkX, chunkY);
+        int baseX = chunkX * WorldChunk.SIZE;
+        int baseY = chunkY * WorldChunk.SIZE;
+
+        generateBiomes(chunk, baseX, baseY);
+        generateTerrainFromBiomes(chunk);
+        applyWater(chunk);
+
+        return chunk;
+    }
+
+    // ============ БИОМЫ ============
+
+    private void generateBiomes(WorldChunk chunk, int baseX, int baseY) {
+        double[] row = new double[WorldChunk.SIZE];
+        for (int ly = 0; ly < WorldChunk.SIZE; ly++) {
+            noiseField.fbmRow(baseX, baseY + ly, WorldChunk.SIZE, row);
+            for (int lx = 0; lx < WorldChunk.SIZE; lx++) {
+                if (row[lx] > 0.1) {
+                    chunk.setBiome(lx, ly, 1); // Лес (по умолчанию - луг)
+                }
+            }
+        }
+    }
+
+    private void generateTerrainFromBiomes(WorldChunk chunk) {
+        // Случайность тайла - хеш сида и мировых координат
+        int baseX = chunk.getChunkX() * WorldChunk.SIZE;
+        int baseY = chunk.getChunkY() * WorldChunk.SIZE;
+
+        byte[] flags = chunk.getFlags();
+        for (int i = 0; i < WorldChunk.AREA; i++) {
+            double chance = HashRandom.unit(worldSeed, baseX + i % WorldChunk.SIZE, baseY + i / WorldChunk.SIZE,
+                                            HashRandom.SALT_VEGETATION);
+            if ((flags[i] & WorldChunk.FLAG_FOREST) == 0) {
+                chunk.setGeneratedTileId(i, chance < 0.95 ? TilePalette.ID_GRASS : TilePalette.ID_TREE);
+            } else {
+                chunk.setGeneratedTileId(i, chance < 0.7 ? TilePalette.ID_TREE : TilePalette.ID_GRASS);
+            }
+        }
+    }
+
+    // ============ ВОДОЕМЫ ============
+
+    private void applyWater(WorldChunk chunk) {
+        long[] mask = getWaterPlan().get(chunk.getKey());
+        if (mask == null) return;
+
+        for (int i = 0; i < WorldChunk.AREA; i++) {
+            if ((mask[i >> 6] & (1L << i)) != 0) {
+                chunk.setGeneratedTileId(i, TilePalette.ID_WATER);
+            }
+        }
+    }
+
+    // Строит план водоемов заранее, до параллельной генерации чанков
+    public void prepareWaterPlan() {
+        getWaterPlan();
+    }
+
+    private Map<Long, long[]> getWaterPlan() {
+        Map<Long, long[]> plan = waterPlan;
+        if (plan != null) {
+            return plan;
+        }
+        synchronized (waterPlanLock) {
+            if (waterPlan == null) {
+                waterPlan = buildWaterPlan();
+            }
+            return waterPlan;
+        }
+    }
+
+    private Map<Long, long[]> buildWaterPlan() {
+        long startTime = System.nanoTime();
+
+        // Каждое озеро и река рисуется отдельной задачей в свою маску,
+        // затем маски сливаются (объединение не зависит от порядка потоков)
+        List<WaterFeatureTask> features = new ArrayList<>();
+        planLakes(features);
+        planRivers(features);
+        GENERATION_POOL.invoke(new WaterPlanTask(features));
+
+        Map<Long, long[]> merged = new HashMap<>();
+        for (WaterFeatureTask feature : features) {
+            for (Map.Entry<Long, long[]> entry : feature.join().entrySet()) {
+                long[] target = merged.get(entry.getKey());
+                if (target == null) {
+                    merged.put(entry.getKey(), entry.getValue());
+                } else {
+                    long[] source = entry.getValue();
+                    for (int i = 0; i < target.length; i++) {
+                        target[i] |= source[i];
+                    }
+                }
+            }
+        }
+
+        System.out.println("🌊 План водоемов построен за " + (System.nanoTime() - startTime) / 1_000_000 +
+                         " мс: затронуто чанков " + merged.size());
+        return merged;
+    }
+
+    // Отрисовка одного водоема в собственную маску
+    private abstract static class WaterFeatureTask extends RecursiveTask<Map<Long, long[]>> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Map<Long, long[]> compute() {
+            Map<Long, long[]> plan = new HashMap<>();
+            draw(plan);
+            return plan;
+        }
+
+        abstract void draw(Map<Long, long[]> plan);
+    }
+
+    private static class WaterPlanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<WaterFeatureTask> features;
+
+        WaterPlanTask(List<WaterFeatureTask> features) {
+            this.features = features;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(features);
+        }
+    }
+
+    private void markWater(Map<Long, long[]> plan, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+
+        long key = WorldChunk.key(x / WorldChunk.SIZE, y / WorldChunk.SIZE);
+        long[] mask = plan.computeIfAbsent(key, k -> new long[(WorldChunk.AREA + 63) / 64]);
+        int index = (y % WorldChunk.SIZE) * WorldChunk.SIZE + (x % WorldChunk.SIZE);
+        mask[index >> 6] |= 1L << index;
+    }
+
+    private void planLakes(List<WaterFeatureTask> features) {
+        HashRandom deterministicRandom = new HashRandom(HashRandom.hash(worldSeed, 0, 0, HashRandom.SALT_LAKES));
+        int lakeCount = 15 + (int)(deterministicRandom.nextDouble() * 10);
+
+        for (int i = 0; i < lakeCount; i++) {
+            int centerX = (int)(deterministicRandom.nextDouble() * width);
+            int centerY = (int)(deterministicRandom.nextDouble() * height);
+            int lakeSize = 8 + (int)(deterministicRandom.nextDouble() * 20);
+            long lakeSeed = deterministicRandom.nextLong();
+
+            features.add(new WaterFeatureTask() {
+                @Override
+                void draw(Map<Long, long[]> plan) {
+                    createLake(plan, centerX, centerY, lakeSize, new HashRandom(lakeSeed));
+                }
+            });
+        }
+
+        System.out.println("🏞️ Создано " + lakeCount + " озер с сидом: " + worldSeed);
+    }
+
+    private void createLake(Map<Long, long[]> plan, int centerX, int centerY, int size, HashRandom random) {
+        int radiusX = size;
+        int radiusY = (int)(size * (0.6 + random.nextDouble() * 0.8));
+
+        for (int y = centerY - radiusY; y <= centerY + radiusY; y++) {
+            for (int x = centerX - radiusX; x <= centerX + radiusX; x++) {
+                if (x >= 0 && x < width && y >= 0 && y < height) {
+                    double normalizedX = (double)(x - centerX) / radiusX;
+                    double normalizedY = (double)(y - centerY) / radiusY;
+                    double ellipseValue = normalizedX * normalizedX + normalizedY * normalizedY;
+
+                    double waterProbability = 1.0 - ellipseValue;
+                    waterProbability += (random.nextDouble() * 0.4) - 0.2;
+
+                    if (ellipseValue < 0.3) {
+                        markWater(plan, x, y);
+                    } else if (ellipseValue < 1.0 && waterProbability > 0.3) {
+                        markWater(plan, x, y);
+                    }
+                }
+            }
+        }
+
+        addLakeBays(plan, centerX, centerY, radiusX, radiusY, random);
+    }
+
+    private void addLakeBays(Map<Long, long[]> plan, int centerX, int centerY, int radiusX, int radiusY, HashRandom random) {
+        int bayCount = 3 + (int)(random.nextDouble() * 4);
+
+        for (int i = 0; i < bayCount; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            int bayStartX = centerX + (int)(StrictMath.cos(angle) * radiusX * 0.8);
+            int bayStartY = centerY + (int)(StrictMath.sin(angle) * radiusY * 0.8);
+            createBay(plan, bayStartX, bayStartY, angle, random);
+        }
+    }
+
+    private void createBay(Map<Long, long[]> plan, int startX, int startY, double direction, HashRandom random) {
+        int bayLength = 3 + (int)(random.nextDouble() * 8);
+        int bayWidth = 1 + (int)(random.nextDouble() * 3);
+
+        int x = startX;
+        int y = startY;
+
+        for (int i = 0; i < bayLength; i++) {
+            x += (int)(StrictMath.cos(direction) * 1.2);
+            y += (int)(StrictMath.sin(direction) * 1.2);
+
+            for (int wy = -bayWidth; wy <= bayWidth; wy++) {
+                for (int wx = -bayWidth; wx <= bayWidth; wx++) {
+                    int worldX = x + wx;
+                    int worldY = y + wy;
+
+                    if (worldX >= 0 && worldX < width && worldY >= 0 && worldY < height) {
+                        double distance = Math.sqrt(wx * wx + wy * wy);
+                        if (distance <= bayWidth && random.nextDouble() < 0.7) {
+                            markWater(plan, worldX, worldY);
+                        }
+                    }
+                }
+            }
+
+            direction += (random.nextDouble() * 0.5) - 0.25;
+        }
+    }
+
+    private void planRivers(List<WaterFeatureTask> features) {
+        HashRandom deterministicRandom = new HashRandom(HashRandom.hash(worldSeed, 0, 0, HashRandom.SALT_RIVERS));
+        int riverCount = 5 + (int)(deterministicRandom.nextDouble() * 3);
+
+        for (int i = 0; i < riverCount; i++) {
+            int startX, startY;
+            if (deterministicRandom.nextDouble() < 0.5) {
+                startX = (int)(deterministicRandom.nextDouble() * width);
+                startY = deterministicRandom.nextDouble() < 0.5 ? 0 : height - 1;
+            } else {
+                startX = deterministicRandom.nextDouble() < 0.5 ? 0 : width - 1;
+                startY = (int)(deterministicRandom.nextDouble() * height);
+            }
+
+            int riverStartX = startX;
+            int riverStartY = startY;
+            long riverSeed = deterministicRandom.nextLong();
+
+            features.add(new WaterFeatureTask() {
+                @Override
+                void draw(Map<Long, long[]> plan) {
+                    createRiver(plan, riverStartX, riverStartY, new HashRandom(riverSeed));
+                }
+            });
+        }
+
+        System.out.println("🌊 Создано " + riverCount + " рек с сидом: " + worldSeed);
+    }
+
+    private void createRiver(Map<Long, long[]> plan, int startX, int startY, HashRandom random) {
+        int x = startX;
+        int y = startY;
+        int riverLength = 100 + (int)(random.nextDouble() * 200);
+
+        int dirX = startX == 0 ? 1 : (startX == width - 1 ? -1 : 0);
+        int dirY = startY == 0 ? 1 : (startY == height - 1 ? -1 : 0);
+
+        if (dirX == 0 && dirY == 0) {
+            if (random.nextDouble() < 0.5) {
+                dirX = random.nextDouble() < 0.5 ? -1 : 1;
+            } else {
+                dirY = random.nextDouble() < 0.5 ? -1 : 1;
+            }
+        }
+
+        for (int i = 0; i < riverLength; i++) {
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                break;
+            }
+
+            int riverWidth = 1 + (int)(random.nextDouble() * 2);
+            for (int wy = -riverWidth; wy <= riverWidth; wy++) {
+                for (int wx = -riverWidth; wx <= riverWidth; wx++) {
+                    double distance = Math.sqrt(wx * wx + wy * wy);
+                    if (distance <= riverWidth) {
+                        markWater(plan, x + wx, y + wy);
+                    }
+                }
+            }
+
+            x += dirX;
+            y += dirY;
+
+            if (random.nextDouble() < 0.3) {
+                if (random.nextDouble() < 0.5) {
+                    dirX += random.nextDouble() < 0.5 ? -1 : 1;
+                    dirX = Math.max(-1, Math.min(1, dirX));
+                } else {
+                    dirY += random.nextDouble() < 0.5 ? -1 : 1;
+                    dirY = Math.max(-1, Math.min(1, dirY));
+                }
+            }
+        }
+    }
+}
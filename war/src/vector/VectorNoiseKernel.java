@@ -0,0 +1,101 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Векторное ядро шума: несколько тайлов строки за одну операцию.
+// Собирается с --add-modules jdk.incubator.vector, загружается NoiseField через рефлексию.
+// Порядок операций повторяет скалярное ядро, поэтому результат совпадает побитово
+public class VectorNoiseKernel implements NoiseKernel {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = DOUBLES.length();
+    private static final DoubleVector LANE_OFFSETS = DoubleVector.fromArray(DOUBLES, laneOffsets(), 0);
+
+    public VectorNoiseKernel() {
+        // Блок полос должен задевать не больше двух ячеек решетки на любой октаве:
+        // тогда хеши считаются скалярно для двух ячеек, а полосы выбирают нужную маской
+        for (double frequency : NoiseField.FREQUENCIES) {
+            if (LANES * frequency >= 1.0) {
+                throw new IllegalStateException("частота " + frequency + " слишком высока для " + LANES + " полос");
+            }
+        }
+    }
+
+    private static double[] laneOffsets() {
+        double[] offsets = new double[LANES];
+        for (int i = 0; i < LANES; i++) {
+            offsets[i] = i;
+        }
+        return offsets;
+    }
+
+    @Override
+    public void fbmRow(int[] p, int baseX, int y, int length, double[] out) {
+        int vectorLength = length - length % LANES;
+
+        for (int i = 0; i < length; i++) {
+            out[i] = 0;
+        }
+
+        for (int octave = 0; octave < NoiseField.FREQUENCIES.length; octave++) {
+            double frequency = NoiseField.FREQUENCIES[octave];
+            double amplitude = NoiseField.AMPLITUDES[octave];
+
+            double fy = y * frequency;
+            double floorY = Math.floor(fy);
+            int cellY = (int) floorY & 255;
+            double yf = fy - floorY;
+            double yf1 = yf - 1;
+            double v = NoiseField.fade(yf);
+
+            for (int i = 0; i < vectorLength; i += LANES) {
+                DoubleVector fx = LANE_OFFSETS.add(baseX + i).mul(frequency);
+
+                // Ячейка первой полосы; остальные полосы в ней же или в следующей
+                double firstFloor = Math.floor((baseX + i) * frequency);
+                VectorMask<Double> next = fx.compare(VectorOperators.GE, firstFloor + 1);
+                DoubleVector floorX = DoubleVector.broadcast(DOUBLES, firstFloor).add(1.0, next);
+                DoubleVector xf = fx.sub(floorX);
+                DoubleVector xf1 = xf.sub(1.0);
+                DoubleVector u = xf.mul(xf).mul(xf).mul(xf.mul(xf.mul(6).sub(15)).add(10));
+
+                int cellX = (int) firstFloor & 255;
+                int a0 = p[cellX] + cellY;
+                int b0 = p[cellX + 1] + cellY;
+                int b1 = p[((cellX + 1) & 255) + 1] + cellY;
+
+                // Углы ячейки: у следующей ячейки левые углы совпадают с правыми углами текущей
+                DoubleVector n00 = corner(p[a0], p[b0], next, xf, yf);
+                DoubleVector n10 = corner(p[b0], p[b1], next, xf1, yf);
+                DoubleVector n01 = corner(p[a0 + 1], p[b0 + 1], next, xf, yf1);
+                DoubleVector n11 = corner(p[b0 + 1], p[b1 + 1], next, xf1, yf1);
+
+                DoubleVector x1 = n00.add(u.mul(n10.sub(n00)));
+                DoubleVector x2 = n01.add(u.mul(n11.sub(n01)));
+                DoubleVector value = x1.add(x2.sub(x1).mul(v)).mul(amplitude);
+                DoubleVector.fromArray(DOUBLES, out, i).add(value).intoArray(out, i);
+            }
+        }
+
+        // Хвост строки, не кратный числу полос
+        if (vectorLength < length) {
+            double[] tail = new double[length - vectorLength];
+            NoiseField.scalarFbmRow(p, baseX + vectorLength, y, tail.length, tail);
+            System.arraycopy(tail, 0, out, vectorLength, tail.length);
+        }
+    }
+
+    // Вклад угла: градиент текущей ячейки или следующей (по маске) на смещение (x, y)
+    private static DoubleVector corner(int hash, int nextHash, VectorMask<Double> next, DoubleVector x, double y) {
+        DoubleVector gx = DoubleVector.broadcast(DOUBLES, NoiseField.gradX(hash))
+            .blend(NoiseField.gradX(nextHash), next);
+        DoubleVector gy = DoubleVector.broadcast(DOUBLES, NoiseField.gradY(hash) * y)
+            .blend(NoiseField.gradY(nextHash) * y, next);
+        return gx.mul(x).add(gy);
+    }
+
+    @Override
+    public String toString() {
+        return DOUBLES.vectorBitSize() + " бит, " + LANES + " полос";
+    }
+}